@@ -1,3 +1,6 @@
+import com.example.projectmagang.build.EncodeGeoJsonTask
+import com.example.projectmagang.build.VerifyAssetsTask
+
 plugins {
     alias(libs.plugins.android.application)
     // Add the Google services Gradle plugin
@@ -28,10 +31,43 @@ android {
             )
         }
     }
+    buildFeatures {
+        // BuildConfig.DEBUG: WebView debugging hanya di build debug
+        buildConfig = true
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // android.util.Log di kelas yang diuji mengembalikan 0, bukan "Stub!"
+        unitTests.isReturnDefaultValues = true
+    }
+}
+
+// Encode src/main/geodata/*.geojson into compact .pgeo assets (see buildSrc)
+val encodeGeometry = tasks.register<EncodeGeoJsonTask>("encodeGeometry") {
+    sourceDir.set(layout.projectDirectory.dir("src/main/geodata"))
+    scale.set(1_000_000)
+}
+
+// Leaflet is vendored in src/main/assets/leaflet (dist of leaflet@1.9.4, incl.
+// images/); the check below fails the build if a file differs from the
+// upstream SRI hash. map.html falls back to unpkg only if a file is missing
+val verifyLeaflet = tasks.register<VerifyAssetsTask>("verifyLeaflet") {
+    assetsDir.set(layout.projectDirectory.dir("src/main/assets"))
+    integrity.put("leaflet/leaflet.js", "sha256-20nQCchB9co0qIjJZRGuk2/Z9VM+kNiyxNV1lvTlZBo=")
+    integrity.put("leaflet/leaflet.css", "sha256-p4NxAoJBhIIN+hmNHrzRCf9tD/miZyoHS5obTRR9BMY=")
+    stampFile.set(layout.buildDirectory.file("intermediates/verifyLeaflet/verified.txt"))
+}
+tasks.named("preBuild") { dependsOn(verifyLeaflet) }
+
+androidComponents {
+    onVariants { variant ->
+        variant.sources.assets?.addGeneratedSourceDirectory(
+            encodeGeometry, EncodeGeoJsonTask::getOutputDir
+        )
+    }
 }
 
 dependencies {
@@ -42,6 +78,8 @@ dependencies {
     implementation(libs.recyclerview)
     implementation(libs.firebase.auth)
     implementation(libs.firebase.firestore)
+    implementation(libs.webkit)
+    implementation(libs.work.runtime)
     testImplementation(libs.junit)
 
     // Firebase
@@ -16,7 +16,7 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.projectmagang.R;
 import com.example.projectmagang.managers.FirebaseManager;
-import com.example.projectmagang.managers.RoleManager;
+import com.example.projectmagang.managers.LoginOrchestrator;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthInvalidCredentialsException;
 import com.google.firebase.auth.FirebaseAuthUserCollisionException;
@@ -34,7 +34,7 @@ public class LoginActivity extends AppCompatActivity {
 
     private FirebaseAuth auth;
     private FirebaseManager firebaseManager;
-    private RoleManager roleManager;
+    private LoginOrchestrator loginOrchestrator;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,14 +47,17 @@ public class LoginActivity extends AppCompatActivity {
         // Initialize Firebase
         auth = FirebaseAuth.getInstance();
         firebaseManager = FirebaseManager.getInstance();
-        roleManager = RoleManager.getInstance(this);
+        loginOrchestrator = new LoginOrchestrator(this);
+
+        // Cache region lokal dan WebView peta mulai dimuat selagi user mengetik
+        loginOrchestrator.warmUp();
 
         // Check if user already logged in
         FirebaseUser currentUser = auth.getCurrentUser();
         if (currentUser != null) {
-            Log.d(TAG, "User already logged in, re-fetching role...");
+            Log.d(TAG, "User already logged in, resuming session...");
             showProgress(true);
-            fetchUserRoleAndNavigate(currentUser.getUid());
+            loginOrchestrator.resumeSession(currentUser.getUid(), isAdmin -> navigateToMain());
             return;
         }
 
@@ -354,19 +357,16 @@ public class LoginActivity extends AppCompatActivity {
     private void fetchUserRoleAndNavigate(String uid) {
         Log.d(TAG, "Fetching role for UID: " + uid);
 
-        firebaseManager.getUserRole(uid, role -> {
-            roleManager.setRole(role);
-            Log.d(TAG, "Role saved: " + role + " (isAdmin: " + roleManager.isAdmin() + ")");
-
-            runOnUiThread(() -> {
-                showProgress(false);
+        // Role dan snapshot region diambil paralel; navigasi begitu role diketahui
+        loginOrchestrator.onSignedIn(uid, isAdmin -> {
+            showProgress(false);
 
-                String roleDisplay = roleManager.isAdmin() ? "Admin" : "User";
-                Toast.makeText(this, "Login berhasil sebagai " + roleDisplay,
-                        Toast.LENGTH_SHORT).show();
+            String roleDisplay = isAdmin ? "Admin" : "User";
+            // Toast memakai application context supaya tetap tampil setelah finish()
+            Toast.makeText(getApplicationContext(), "Login berhasil sebagai " + roleDisplay,
+                    Toast.LENGTH_SHORT).show();
 
-                new android.os.Handler().postDelayed(this::navigateToMain, 300);
-            });
+            navigateToMain();
         });
     }
 
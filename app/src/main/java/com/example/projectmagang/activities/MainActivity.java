@@ -1,13 +1,22 @@
 package com.example.projectmagang.activities;
 
+import android.Manifest;
 import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.view.MenuItem;
 
 import androidx.annotation.NonNull;
 import androidx.activity.EdgeToEdge;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
@@ -23,7 +32,18 @@ import com.google.firebase.auth.FirebaseAuth;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String TAG_MAPS = "tab_maps";
+    private static final String TAG_DESCRIPTION = "tab_description";
+    private static final String TAG_USER = "tab_user";
+
     private BottomNavigationView bottomNavigationView;
+    private Fragment activeFragment;
+
+    // Izin notifikasi (Android 13+) untuk peringatan gangguan dari RegionSyncWorker;
+    // jika ditolak, sync tetap berjalan tanpa notifikasi
+    private final ActivityResultLauncher<String> notificationPermissionLauncher =
+            registerForActivityResult(new ActivityResultContracts.RequestPermission(), granted -> {
+            });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -36,54 +56,100 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
+        // Start reading the local region cache while the UI and WebView spin up
+        FirebaseManager.getInstance().enableLocalCache(this);
+
+        if (savedInstanceState == null) {
+            requestNotificationPermission();
+        }
+
         // Initialize bottom navigation
         bottomNavigationView = findViewById(R.id.bottom_navigation);
         bottomNavigationView.setOnItemSelectedListener(navListener);
 
         // Load default fragment (Maps)
         if (savedInstanceState == null) {
-            getSupportFragmentManager().beginTransaction()
-                    .replace(R.id.fragment_container, new MapsFragment())
-                    .commit();
+            showTab(TAG_MAPS);
+        } else {
+            // Fragment dipulihkan oleh FragmentManager; cari tab yang sedang tampil
+            for (Fragment fragment : getSupportFragmentManager().getFragments()) {
+                if (!fragment.isHidden()) {
+                    activeFragment = fragment;
+                }
+            }
         }
     }
 
+    private void requestNotificationPermission() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.TIRAMISU) return;
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+                == PackageManager.PERMISSION_GRANTED) return;
+        notificationPermissionLauncher.launch(Manifest.permission.POST_NOTIFICATIONS);
+    }
+
     private BottomNavigationView.OnItemSelectedListener navListener =
             new BottomNavigationView.OnItemSelectedListener() {
                 @Override
                 public boolean onNavigationItemSelected(@NonNull MenuItem item) {
-                    Fragment selectedFragment = null;
-
                     int itemId = item.getItemId();
                     if (itemId == R.id.nav_maps) {
-                        selectedFragment = new MapsFragment();
+                        showTab(TAG_MAPS);
                     } else if (itemId == R.id.nav_description) {
-                        selectedFragment = new DescriptionFragment();
+                        showTab(TAG_DESCRIPTION);
                     } else if (itemId == R.id.nav_user) {
-                        selectedFragment = new UserFragment();
-                    }
-
-                    if (selectedFragment != null) {
-                        getSupportFragmentManager().beginTransaction()
-                                .replace(R.id.fragment_container, selectedFragment)
-                                .commit();
+                        showTab(TAG_USER);
                     }
 
                     return true;
                 }
             };
 
+    /**
+     * Tampilkan tab dengan show/hide. Fragment dibuat sekali saat tab pertama
+     * kali dibuka lalu dipakai ulang; tab yang disembunyikan dibatasi ke STARTED
+     * sehingga onPause-nya melepas subscription Firestore.
+     */
+    private void showTab(String tag) {
+        FragmentManager fragmentManager = getSupportFragmentManager();
+        Fragment target = fragmentManager.findFragmentByTag(tag);
+        if (target != null && target == activeFragment) return;
+
+        FragmentTransaction transaction = fragmentManager.beginTransaction()
+                .setReorderingAllowed(true);
+
+        if (activeFragment != null) {
+            transaction.hide(activeFragment)
+                    .setMaxLifecycle(activeFragment, Lifecycle.State.STARTED);
+        }
+
+        if (target == null) {
+            target = createFragment(tag);
+            transaction.add(R.id.fragment_container, target, tag);
+        } else {
+            transaction.show(target);
+        }
+        transaction.setMaxLifecycle(target, Lifecycle.State.RESUMED);
+        transaction.commit();
+
+        activeFragment = target;
+    }
+
+    private Fragment createFragment(String tag) {
+        switch (tag) {
+            case TAG_DESCRIPTION:
+                return new DescriptionFragment();
+            case TAG_USER:
+                return new UserFragment();
+            case TAG_MAPS:
+            default:
+                return new MapsFragment();
+        }
+    }
+
     private void navigateToLogin() {
         Intent intent = new Intent(this, LoginActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
         startActivity(intent);
         finish();
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // Remove Firebase listeners
-        FirebaseManager.getInstance().removeRegionsListener();
-    }
 }
\ No newline at end of file
@@ -9,23 +9,89 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.projectmagang.R;
 import com.example.projectmagang.models.Region;
 
 import java.text.SimpleDateFormat;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
-public class RegionAdapter extends RecyclerView.Adapter<RegionAdapter.ViewHolder> {
+/**
+ * Adapter daftar region. Diff dihitung di background thread oleh ListAdapter
+ * (AsyncListDiffer), jadi hanya kartu yang berubah yang di-bind ulang.
+ */
+public class RegionAdapter extends ListAdapter<Region, RegionAdapter.ViewHolder> {
 
-    private List<Region> regionList;
-    private SimpleDateFormat dateFormat;
+    // Payload flags untuk partial bind
+    private static final int PAYLOAD_NAME = 1;
+    private static final int PAYLOAD_STATUS = 1 << 1;
+    private static final int PAYLOAD_INFO = 1 << 2;
+    private static final int PAYLOAD_LAST_UPDATE = 1 << 3;
 
-    public RegionAdapter(Context context, List<Region> regionList) {
-        this.regionList = regionList;
+    private static final DiffUtil.ItemCallback<Region> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Region>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Region oldItem, @NonNull Region newItem) {
+                    return Objects.equals(oldItem.getId(), newItem.getId());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Region oldItem, @NonNull Region newItem) {
+                    return oldItem.hasSameContent(newItem);
+                }
+
+                @Override
+                public Object getChangePayload(@NonNull Region oldItem, @NonNull Region newItem) {
+                    int flags = 0;
+                    if (!Objects.equals(oldItem.getName(), newItem.getName())) flags |= PAYLOAD_NAME;
+                    if (!Objects.equals(oldItem.getStatus(), newItem.getStatus())) flags |= PAYLOAD_STATUS;
+                    if (!Objects.equals(oldItem.getInfo(), newItem.getInfo())) flags |= PAYLOAD_INFO;
+                    if (!Objects.equals(oldItem.getLastUpdate(), newItem.getLastUpdate())
+                            || oldItem.isPendingWrite() != newItem.isPendingWrite()) {
+                        flags |= PAYLOAD_LAST_UPDATE;
+                    }
+                    return flags;
+                }
+            };
+
+    /**
+     * Klik item, mis. untuk membuka timeline riwayat status.
+     */
+    public interface OnRegionClickListener {
+        void onRegionClick(Region region);
+    }
+
+    private final SimpleDateFormat dateFormat;
+    private final Map<String, Long> stableIds = new HashMap<>();
+    private OnRegionClickListener onRegionClickListener;
+
+    public RegionAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.dateFormat = new SimpleDateFormat("dd MMM yyyy, HH:mm", new Locale("id", "ID"));
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        // Id numerik per region id, stabil selama adapter hidup (tanpa risiko tabrakan hash)
+        String regionId = getItem(position).getId();
+        Long id = stableIds.get(regionId);
+        if (id == null) {
+            id = (long) stableIds.size();
+            stableIds.put(regionId, id);
+        }
+        return id;
+    }
+
+    public void setOnRegionClickListener(OnRegionClickListener listener) {
+        this.onRegionClickListener = listener;
     }
 
     @NonNull
@@ -33,33 +99,69 @@ public class RegionAdapter extends RecyclerView.Adapter<RegionAdapter.ViewHolder
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_region, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+        // Listener dipasang sekali per ViewHolder, bukan setiap bind
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && onRegionClickListener != null) {
+                onRegionClickListener.onRegionClick(getItem(position));
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Region region = regionList.get(position);
+        Region region = getItem(position);
 
         holder.tvRegionName.setText(region.getName());
-        holder.tvStatus.setText(region.getStatusDisplay());
+        bindStatus(holder, region);
         holder.tvInfo.setText(region.getInfo());
+        bindLastUpdate(holder, region);
+    }
 
-        // Format timestamp
-        if (region.getLastUpdate() != null) {
-            String formattedDate = dateFormat.format(region.getLastUpdate().toDate());
-            holder.tvLastUpdate.setText("Terakhir diperbarui: " + formattedDate);
-        } else {
-            holder.tvLastUpdate.setText("Terakhir diperbarui: -");
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
         }
 
+        int flags = 0;
+        for (Object payload : payloads) {
+            if (payload instanceof Integer) flags |= (Integer) payload;
+        }
+
+        Region region = getItem(position);
+        if ((flags & PAYLOAD_NAME) != 0) holder.tvRegionName.setText(region.getName());
+        if ((flags & PAYLOAD_STATUS) != 0) bindStatus(holder, region);
+        if ((flags & PAYLOAD_INFO) != 0) holder.tvInfo.setText(region.getInfo());
+        if ((flags & PAYLOAD_LAST_UPDATE) != 0) bindLastUpdate(holder, region);
+    }
+
+    private void bindStatus(ViewHolder holder, Region region) {
+        holder.tvStatus.setText(region.getStatusDisplay());
+
         // Set status color
         int color = ContextCompat.getColor(holder.itemView.getContext(), region.getColorResId());
         holder.tvStatus.setTextColor(color);
     }
 
-    @Override
-    public int getItemCount() {
-        return regionList.size();
+    private void bindLastUpdate(ViewHolder holder, Region region) {
+        // Edit lokal yang belum dikonfirmasi server
+        if (region.isPendingWrite()) {
+            holder.tvLastUpdate.setText("⏳ Menyimpan perubahan...");
+            return;
+        }
+
+        // Format timestamp
+        if (region.getLastUpdate() != null) {
+            String formattedDate = dateFormat.format(region.getLastUpdate().toDate());
+            holder.tvLastUpdate.setText("Terakhir diperbarui: " + formattedDate);
+        } else {
+            holder.tvLastUpdate.setText("Terakhir diperbarui: -");
+        }
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
@@ -75,4 +177,4 @@ public class RegionAdapter extends RecyclerView.Adapter<RegionAdapter.ViewHolder
             tvLastUpdate = itemView.findViewById(R.id.tv_last_update);
         }
     }
-}
\ No newline at end of file
+}
@@ -5,10 +5,12 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.CompoundButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -16,17 +18,34 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.projectmagang.R;
 import com.example.projectmagang.adapters.RegionAdapter;
 import com.example.projectmagang.managers.FirebaseManager;
+import com.example.projectmagang.managers.OutageMetricsEngine;
+import com.example.projectmagang.managers.RegionRollup;
+import com.example.projectmagang.managers.RegionStatisticsSource;
+import com.example.projectmagang.managers.RegionStore;
 import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionChangeSet;
+import com.example.projectmagang.models.RegionHistoryEntry;
 import com.example.projectmagang.models.RegionStatistics;
+import com.example.projectmagang.models.RegionTimeline;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class DescriptionFragment extends Fragment {
     private static final String TAG = "DescriptionFragment";
+    private static final int HISTORY_WINDOW_DAYS = 30;
+    private static final int METRICS_WORST_WARDS = 5;
+    private static final String[] METRICS_WINDOW_LABELS = {"24 jam", "7 hari", "30 hari"};
+    private static final int[] METRICS_WINDOW_HOURS = {
+            OutageMetricsEngine.WINDOW_24H,
+            OutageMetricsEngine.WINDOW_7D,
+            OutageMetricsEngine.WINDOW_30D
+    };
 
     // Statistics Views
     private TextView tvTotalRegions;
@@ -39,9 +58,16 @@ public class DescriptionFragment extends Fragment {
     private RecyclerView recyclerView;
     private RegionAdapter adapter;
 
+    // Filter "hanya gangguan": query whereIn di server + count() untuk total
+    private CompoundButton chipIssuesOnly;
+    private boolean issuesOnly = false;
+    // Hasil aggregate query; dipakai selama data lengkap belum tersedia
+    private RegionStatistics aggregatedStatistics;
+
     // Firebase
     private FirebaseManager firebaseManager;
-    private List<Region> regionsList;
+    private FirebaseManager.OnRegionsLoadedListener regionsListener;
+    private FirebaseManager.OnRegionChangesListener issuesListener;
 
     @Nullable
     @Override
@@ -54,14 +80,11 @@ public class DescriptionFragment extends Fragment {
 
         // Initialize Firebase
         firebaseManager = FirebaseManager.getInstance();
-        regionsList = new ArrayList<>();
 
         // Setup RecyclerView
         setupRecyclerView();
 
-        // Load data
-        loadRegionsData();
-
+        // Data dimuat di onResume, supaya subscription hanya aktif saat tab terlihat
         return view;
     }
 
@@ -79,6 +102,12 @@ public class DescriptionFragment extends Fragment {
         // RecyclerView
         recyclerView = view.findViewById(R.id.recycler_view);
 
+        chipIssuesOnly = view.findViewById(R.id.chip_issues_only);
+        chipIssuesOnly.setChecked(issuesOnly);
+        chipIssuesOnly.setOnCheckedChangeListener((button, checked) -> setIssuesOnly(checked));
+
+        view.findViewById(R.id.chip_metrics).setOnClickListener(v -> showMetricsWindowPicker());
+
         // ✅ FIX: Set default text untuk menunjukkan loading state
         tvLastUpdate.setText("🔄 Memuat data...");
     }
@@ -90,7 +119,8 @@ public class DescriptionFragment extends Fragment {
             return;
         }
 
-        adapter = new RegionAdapter(getContext(), regionsList);
+        adapter = new RegionAdapter(getContext());
+        adapter.setOnRegionClickListener(this::showHistoryDialog);
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerView.setAdapter(adapter);
 
@@ -106,8 +136,91 @@ public class DescriptionFragment extends Fragment {
             return;
         }
 
-        // Add real-time listener
-        firebaseManager.addRegionsListener(new FirebaseManager.OnRegionsLoadedListener() {
+        if (issuesOnly) {
+            if (issuesListener == null) {
+                issuesListener = createIssuesListener();
+            }
+            firebaseManager.addIssueChangesListener(issuesListener);
+            loadAggregatedStatistics();
+            return;
+        }
+
+        // Snapshot pertama belum datang: tampilkan angka dari count() dulu
+        if (firebaseManager.getRegionStore().isEmpty()) {
+            loadAggregatedStatistics();
+        }
+
+        // Add real-time listener (shared Firestore subscription)
+        if (regionsListener == null) {
+            regionsListener = createRegionsListener();
+        }
+        firebaseManager.addRegionsListener(regionsListener);
+    }
+
+    private void removeListeners() {
+        firebaseManager.removeRegionsListener(regionsListener);
+        if (issuesListener != null) {
+            firebaseManager.removeIssueChangesListener(issuesListener);
+        }
+    }
+
+    /**
+     * Ganti antara semua region dan hanya region bermasalah. Subscription lama
+     * dilepas supaya hanya satu query yang aktif.
+     */
+    private void setIssuesOnly(boolean enabled) {
+        if (issuesOnly == enabled) return;
+        issuesOnly = enabled;
+        Log.d(TAG, "🔀 Issues only: " + enabled);
+
+        removeListeners();
+        if (isResumed()) {
+            loadRegionsData();
+        }
+    }
+
+    private void loadAggregatedStatistics() {
+        firebaseManager.getStatisticsSource().load(new RegionStatisticsSource.OnStatisticsLoadedListener() {
+            @Override
+            public void onStatisticsLoaded(RegionStatistics statistics, boolean fromServer) {
+                aggregatedStatistics = statistics;
+                if (isAdded()) updateStatistics();
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "❌ Error loading aggregated statistics: " + error);
+            }
+        });
+    }
+
+    private FirebaseManager.OnRegionChangesListener createIssuesListener() {
+        return new FirebaseManager.OnRegionChangesListener() {
+            @Override
+            public void onRegionsChanged(RegionChangeSet changes, RegionStore store) {
+                // Dipanggil di main thread oleh RegionSubscriptionHub
+                if (!isAdded() || adapter == null) return;
+
+                List<Region> regions = store.getAll();
+                Log.d(TAG, "⚠️ Issue regions: " + regions.size());
+                adapter.submitList(regions);
+                updateStatistics();
+                updateLastUpdateTime();
+                if (regions.isEmpty()) {
+                    tvLastUpdate.setText(tvLastUpdate.getText() + " • ✅ Semua normal");
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "❌ Error loading issue regions: " + error);
+                if (isAdded()) showErrorState(error);
+            }
+        };
+    }
+
+    private FirebaseManager.OnRegionsLoadedListener createRegionsListener() {
+        return new FirebaseManager.OnRegionsLoadedListener() {
             @Override
             public void onRegionsLoaded(List<Region> regions) {
                 // ✅ FIX: Cek apakah fragment masih attached sebelum update UI
@@ -116,35 +229,23 @@ public class DescriptionFragment extends Fragment {
                     return;
                 }
 
-                Log.d(TAG, "========== REGIONS LOADED ==========");
-                Log.d(TAG, "Total regions: " + regions.size());
-
-                // Debug: Print all region names
-                for (int i = 0; i < regions.size(); i++) {
-                    Region r = regions.get(i);
-                    Log.d(TAG, "Region " + i + ": " + r.getName() + " - " + r.getStatus());
-                }
-                Log.d(TAG, "====================================");
+                Log.d(TAG, "🔄 Regions loaded: " + regions.size());
 
                 // ✅ FIX: Update data di UI thread
                 getActivity().runOnUiThread(new Runnable() {
                     @Override
                     public void run() {
                         try {
-                            // Clear dan update list
-                            regionsList.clear();
-                            regionsList.addAll(regions);
-
-                            // Notify adapter
+                            // Diff dihitung di background, hanya item berubah yang di-bind ulang
                             if (adapter != null) {
-                                adapter.notifyDataSetChanged();
-                                Log.d(TAG, "✅ Adapter notified with " + regionsList.size() + " items");
+                                adapter.submitList(regions);
+                                Log.d(TAG, "✅ Adapter submitted " + regions.size() + " items");
                             } else {
                                 Log.e(TAG, "❌ Adapter is null!");
                             }
 
                             // Update statistics
-                            updateStatistics(regions);
+                            updateStatistics();
 
                             // Update last update time
                             updateLastUpdateTime();
@@ -171,16 +272,24 @@ public class DescriptionFragment extends Fragment {
                     });
                 }
             }
-        });
+        };
     }
 
     /**
      * ✅ FIX: Update statistics dengan error handling
      */
-    private void updateStatistics(List<Region> regions) {
+    private void updateStatistics() {
         try {
-            // Calculate statistics
-            RegionStatistics stats = RegionStatistics.calculate(regions);
+            // Total dijaga inkremental oleh RegionRollup, tidak perlu scan ulang list.
+            // Mode gangguan / sebelum snapshot pertama: angka dari aggregate count().
+            RegionStatistics stats;
+            if (issuesOnly) {
+                stats = firebaseManager.getIssueStatistics(aggregatedStatistics);
+            } else if (firebaseManager.getRegionStore().isEmpty() && aggregatedStatistics != null) {
+                stats = aggregatedStatistics;
+            } else {
+                stats = firebaseManager.getRegionStore().getRollup().getCityStatistics();
+            }
 
             Log.d(TAG, "📊 Statistics: " + stats.toString());
 
@@ -226,6 +335,148 @@ public class DescriptionFragment extends Fragment {
         }
     }
 
+    /**
+     * Timeline riwayat status region dalam {@link #HISTORY_WINDOW_DAYS} hari
+     * terakhir, dengan ringkasan jumlah gangguan, total durasi dan MTTR.
+     */
+    private void showHistoryDialog(Region region) {
+        AlertDialog dialog = new AlertDialog.Builder(requireContext())
+                .setTitle("📜 Riwayat " + region.getName())
+                .setMessage("🔄 Memuat riwayat...")
+                .setPositiveButton("Tutup", null)
+                .show();
+
+        long to = System.currentTimeMillis();
+        long from = to - TimeUnit.DAYS.toMillis(HISTORY_WINDOW_DAYS);
+        firebaseManager.getRegionHistory(region.getId(), from, to,
+                new FirebaseManager.OnHistoryLoadedListener() {
+                    @Override
+                    public void onHistoryLoaded(RegionTimeline timeline) {
+                        if (dialog.isShowing()) dialog.setMessage(formatTimeline(timeline));
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        if (dialog.isShowing()) dialog.setMessage("⚠️ Error: " + error);
+                    }
+                });
+    }
+
+    private String formatTimeline(RegionTimeline timeline) {
+        StringBuilder message = new StringBuilder();
+        message.append("📊 ").append(HISTORY_WINDOW_DAYS).append(" hari terakhir\n");
+        message.append("Gangguan: ").append(timeline.getOutages().size()).append(" kali");
+        message.append(" • Total: ").append(formatDuration(timeline.getTotalOutageMillis())).append("\n");
+        long mttr = timeline.getMttrMillis();
+        message.append("MTTR: ").append(mttr >= 0 ? formatDuration(mttr) : "-").append("\n\n");
+
+        List<RegionHistoryEntry> entries = timeline.getEntries();
+        if (entries.isEmpty()) {
+            message.append("Belum ada perubahan status.");
+            return message.toString();
+        }
+
+        SimpleDateFormat sdf = new SimpleDateFormat("dd MMM yyyy, HH:mm", new Locale("id", "ID"));
+        // Terbaru di atas
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            RegionHistoryEntry entry = entries.get(i);
+            message.append(entry.getStatus().getMarker()).append(" ")
+                    .append(sdf.format(new Date(entry.getTimeMillis())))
+                    .append(" • ").append(entry.getStatus().getLabel());
+            if (!entry.getInfo().isEmpty()) {
+                message.append("\n      ").append(entry.getInfo());
+            }
+            message.append("\n");
+        }
+        return message.toString();
+    }
+
+    private void showMetricsWindowPicker() {
+        new AlertDialog.Builder(requireContext())
+                .setTitle("📈 Metrik gangguan")
+                .setItems(METRICS_WINDOW_LABELS, (picker, which) ->
+                        showMetricsDialog(METRICS_WINDOW_LABELS[which], METRICS_WINDOW_HOURS[which]))
+                .show();
+    }
+
+    /**
+     * Uptime, jumlah gangguan dan MTTR per kecamatan untuk satu jendela waktu,
+     * plus kelurahan dengan downtime terbesar. Riwayat 30 hari dimuat sekali
+     * lalu dihitung dari {@link OutageMetricsEngine}.
+     */
+    private void showMetricsDialog(String windowLabel, int windowHours) {
+        AlertDialog dialog = new AlertDialog.Builder(requireContext())
+                .setTitle("📈 Metrik " + windowLabel + " terakhir")
+                .setMessage("🔄 Memuat riwayat gangguan...")
+                .setPositiveButton("Tutup", null)
+                .show();
+
+        firebaseManager.loadOutageHistory(new FirebaseManager.OnCompleteListener() {
+            @Override
+            public void onSuccess() {
+                if (dialog.isShowing()) dialog.setMessage(formatMetrics(windowHours));
+            }
+
+            @Override
+            public void onFailure(String error) {
+                // Metrik dari transisi live tetap ditampilkan, dengan catatan
+                if (dialog.isShowing()) {
+                    dialog.setMessage("⚠️ Riwayat tidak lengkap: " + error + "\n\n"
+                            + formatMetrics(windowHours));
+                }
+            }
+        });
+    }
+
+    private String formatMetrics(int windowHours) {
+        OutageMetricsEngine engine = firebaseManager.getOutageMetrics();
+        RegionRollup rollup = firebaseManager.getRegionStore().getRollup();
+        long now = System.currentTimeMillis();
+        StringBuilder message = new StringBuilder();
+
+        Map<String, OutageMetricsEngine.Metrics> wards = engine.getAllWardMetrics(windowHours, now);
+        OutageMetricsEngine.Metrics city = engine.getCombinedMetrics(wards.keySet(), windowHours, now);
+        message.append("🏙️ Seluruh kota\n");
+        appendMetrics(message, city);
+
+        for (RegionRollup.DistrictSummary district : rollup.getDistrictSummaries()) {
+            message.append("\n📍 ").append(district.getName()).append("\n");
+            appendMetrics(message, engine.getCombinedMetrics(district.getWardIds(), windowHours, now));
+        }
+
+        List<Map.Entry<String, OutageMetricsEngine.Metrics>> worst =
+                new ArrayList<>(wards.entrySet());
+        worst.removeIf(entry -> entry.getValue().getDownMillis() == 0);
+        worst.sort((a, b) -> Long.compare(b.getValue().getDownMillis(), a.getValue().getDownMillis()));
+        if (!worst.isEmpty()) {
+            message.append("\n🔥 Downtime terbesar\n");
+            for (int i = 0; i < Math.min(METRICS_WORST_WARDS, worst.size()); i++) {
+                Map.Entry<String, OutageMetricsEngine.Metrics> entry = worst.get(i);
+                String name = rollup.getWardName(entry.getKey());
+                message.append(i + 1).append(". ").append(name != null ? name : entry.getKey())
+                        .append(" • ").append(formatDuration(entry.getValue().getDownMillis()))
+                        .append("\n");
+            }
+        }
+        return message.toString();
+    }
+
+    private static void appendMetrics(StringBuilder message, OutageMetricsEngine.Metrics metrics) {
+        long mttr = metrics.getMttrMillis();
+        message.append(String.format(Locale.US, "Uptime %.2f%%", metrics.getUptimePercent()))
+                .append(" • Gangguan: ").append(metrics.getOutageCount()).append(" kali")
+                .append(" • MTTR: ").append(mttr >= 0 ? formatDuration(mttr) : "-")
+                .append("\n");
+    }
+
+    private static String formatDuration(long millis) {
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(millis);
+        if (minutes < 60) return minutes + " menit";
+        long hours = minutes / 60;
+        if (hours < 24) return hours + " jam " + (minutes % 60) + " menit";
+        return (hours / 24) + " hari " + (hours % 24) + " jam";
+    }
+
     /**
      * ✅ NEW: Tampilkan error state
      */
@@ -247,8 +498,8 @@ public class DescriptionFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        // Remove Firebase listener
-        firebaseManager.removeRegionsListener();
+        // Remove only this fragment's subscriber
+        removeListeners();
         Log.d(TAG, "🗑️ Fragment destroyed, listener removed");
     }
 
@@ -256,15 +507,15 @@ public class DescriptionFragment extends Fragment {
     public void onResume() {
         super.onResume();
         Log.d(TAG, "▶️ Fragment resumed");
-        // Reload data when fragment becomes visible
-        if (regionsList.isEmpty()) {
-            loadRegionsData();
-        }
+        // Subscribe saat tab terlihat; replay dari store langsung mengisi daftar
+        loadRegionsData();
     }
 
     @Override
     public void onPause() {
         super.onPause();
-        Log.d(TAG, "⏸️ Fragment paused");
+        // Tab disembunyikan (show/hide di MainActivity): lepas subscription
+        removeListeners();
+        Log.d(TAG, "⏸️ Fragment paused, listener removed");
     }
 }
\ No newline at end of file
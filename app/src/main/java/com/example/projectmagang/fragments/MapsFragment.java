@@ -1,37 +1,58 @@
 package com.example.projectmagang.fragments;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.webkit.WebSettings;
 import android.webkit.WebView;
-import android.webkit.WebViewClient;
+import android.widget.CompoundButton;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.example.projectmagang.R;
-import com.example.projectmagang.interfaces.WebAppInterface;
 import com.example.projectmagang.managers.FirebaseManager;
-import com.example.projectmagang.managers.RoleManager;
+import com.example.projectmagang.managers.MapWebViewPool;
+import com.example.projectmagang.managers.OutageMetricsEngine;
+import com.example.projectmagang.managers.RegionStore;
 import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionChangeSet;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class MapsFragment extends Fragment {
     private static final String TAG = "MapsFragment";
+    // Heatmap (semua kelurahan x jendela 7 hari) dikirim paling sering sekali per interval ini
+    private static final long HEATMAP_THROTTLE_MS = 5_000;
 
     private WebView webView;
+    private MapWebViewPool webViewPool;
     private FirebaseManager firebaseManager;
-    private RoleManager roleManager;
     private boolean isMapLoaded = false;
+    // Overlay "hanya gangguan": subscribe ke query whereIn, bukan seluruh koleksi
+    private boolean issuesOnly = false;
+    // Heatmap downtime 7 hari; data dari OutageMetricsEngine, bukan dari status terkini
+    private boolean heatmapEnabled = false;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean heatmapRefreshScheduled = false;
+    private long lastHeatmapPushAt = 0;
+    private final Runnable heatmapRefreshRunnable = () -> {
+        heatmapRefreshScheduled = false;
+        refreshHeatmap();
+    };
+    private FirebaseManager.OnRegionChangesListener regionsListener;
 
     @Nullable
     @Override
@@ -40,59 +61,160 @@ public class MapsFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_maps, container, false);
 
         firebaseManager = FirebaseManager.getInstance();
-        roleManager = RoleManager.getInstance(requireContext());
+        webViewPool = MapWebViewPool.getInstance();
 
-        webView = view.findViewById(R.id.webview);
-        setupWebView();
-        setupFirebaseListener();
+        // Pinjam WebView yang sudah di-prewarm; peta tidak dimuat ulang
+        webView = webViewPool.acquire(requireActivity());
+        ((ViewGroup) view.findViewById(R.id.map_container)).addView(webView,
+                new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                        ViewGroup.LayoutParams.MATCH_PARENT));
+
+        // Jika peta sudah siap, replay saat subscribe di onResume langsung mengisi peta
+        isMapLoaded = webViewPool.isMapReady();
+        webViewPool.setOnMapReadyListener(this::onMapReady);
+        // Logout menghancurkan WebView pool selagi fragment ini masih hidup
+        webViewPool.setOnDestroyedListener(() -> {
+            webView = null;
+            isMapLoaded = false;
+        });
+        regionsListener = createRegionsListener();
+
+        CompoundButton chipIssuesOnly = view.findViewById(R.id.chip_issues_only);
+        chipIssuesOnly.setChecked(issuesOnly);
+        chipIssuesOnly.setOnCheckedChangeListener((button, checked) -> setIssuesOnly(checked));
+        CompoundButton chipHeatmap = view.findViewById(R.id.chip_heatmap);
+        chipHeatmap.setChecked(heatmapEnabled);
+        chipHeatmap.setOnCheckedChangeListener((button, checked) -> setHeatmapEnabled(checked));
+
+        // WebView dari pool bisa masih membawa mode fragment sebelumnya
+        pushIssuesOnly();
+        pushHeatmap();
 
         return view;
     }
 
-    private void setupWebView() {
-        WebSettings webSettings = webView.getSettings();
-        webSettings.setJavaScriptEnabled(true);
-        webSettings.setDomStorageEnabled(true);
-        webSettings.setAllowFileAccess(true);
-        webSettings.setAllowContentAccess(true);
-        webSettings.setBuiltInZoomControls(true);
-        webSettings.setDisplayZoomControls(false);
+    private void subscribe() {
+        if (issuesOnly) {
+            firebaseManager.addIssueChangesListener(regionsListener);
+        } else {
+            firebaseManager.addRegionChangesListener(regionsListener);
+        }
+    }
 
-        WebView.setWebContentsDebuggingEnabled(true);
+    private void unsubscribe() {
+        firebaseManager.removeRegionChangesListener(regionsListener);
+        firebaseManager.removeIssueChangesListener(regionsListener);
+    }
 
-        webView.addJavascriptInterface(new WebAppInterface(requireContext()), "Android");
+    /**
+     * Region yang keluar dari query issues datang sebagai "removed"; map.html
+     * menampilkan region non-gangguan dengan warna pudar selama mode ini aktif.
+     */
+    private void setIssuesOnly(boolean enabled) {
+        if (issuesOnly == enabled) return;
+        issuesOnly = enabled;
+        Log.d(TAG, "🔀 Issues overlay: " + enabled);
 
-        webView.setWebViewClient(new WebViewClient() {
-            @Override
-            public void onPageFinished(WebView view, String url) {
-                super.onPageFinished(view, url);
-                isMapLoaded = true;
+        pushIssuesOnly();
+        if (isResumed()) {
+            unsubscribe();
+            // Replay dari store yang baru langsung mengisi ulang peta
+            subscribe();
+        }
+    }
 
-                String role = roleManager.getRole();
-                boolean isAdmin = roleManager.isAdmin();
+    private void pushIssuesOnly() {
+        if (!isMapLoaded || webView == null) return;
+        webView.evaluateJavascript("javascript:setIssuesOnly(" + issuesOnly + ")", null);
+    }
 
-                Log.d(TAG, "🗺️ Map loaded | Role: " + role + " | isAdmin: " + isAdmin);
+    /**
+     * Riwayat 30 hari dimuat sekali (collection group query, di-cache di
+     * FirebaseManager); setelah itu heatmap cukup dihitung ulang dari engine.
+     */
+    private void setHeatmapEnabled(boolean enabled) {
+        if (heatmapEnabled == enabled) return;
+        heatmapEnabled = enabled;
+        Log.d(TAG, "🔥 Heatmap: " + enabled);
 
-                webView.evaluateJavascript("javascript:setUserRole('" + role + "')", value -> {
-                    Log.d(TAG, "✅ Role set in WebView: " + role);
-                });
+        if (!enabled) {
+            pushHeatmap();
+            return;
+        }
+        refreshHeatmap();
+    }
+
+    /**
+     * Muat ulang riwayat jika perlu (kedaluwarsa, atau feed live sempat
+     * terputus), lalu kirim heatmap. Tanpa query jika riwayat masih segar.
+     */
+    private void refreshHeatmap() {
+        firebaseManager.loadOutageHistory(new FirebaseManager.OnCompleteListener() {
+            @Override
+            public void onSuccess() {
+                pushHeatmap();
+            }
 
-                new android.os.Handler().postDelayed(() -> {
-                    loadRegionsData();
-                }, 500);
+            @Override
+            public void onFailure(String error) {
+                // Tetap tampilkan metrik dari transisi live sejak aplikasi dibuka
+                Log.w(TAG, "⚠️ Outage history unavailable: " + error);
+                pushHeatmap();
             }
         });
+    }
+
+    /**
+     * Perubahan region beruntun digabung: heatmap dihitung ulang paling sering
+     * sekali per {@link #HEATMAP_THROTTLE_MS}, dengan transisi terbaru.
+     */
+    private void scheduleHeatmapRefresh() {
+        if (heatmapRefreshScheduled) return;
+        heatmapRefreshScheduled = true;
+        long delay = lastHeatmapPushAt + HEATMAP_THROTTLE_MS - SystemClock.elapsedRealtime();
+        mainHandler.postDelayed(heatmapRefreshRunnable, Math.max(0, delay));
+    }
 
-        webView.loadUrl("file:///android_asset/map.html");
+    private void cancelHeatmapRefresh() {
+        mainHandler.removeCallbacks(heatmapRefreshRunnable);
+        heatmapRefreshScheduled = false;
     }
 
-    private void setupFirebaseListener() {
-        firebaseManager.addRegionsListener(new FirebaseManager.OnRegionsLoadedListener() {
+    private void pushHeatmap() {
+        if (!isMapLoaded || webView == null) return;
+        if (!heatmapEnabled) {
+            webView.evaluateJavascript("javascript:setHeatmap(null)", null);
+            return;
+        }
+        lastHeatmapPushAt = SystemClock.elapsedRealtime();
+
+        try {
+            Map<String, OutageMetricsEngine.Metrics> metrics = firebaseManager.getOutageMetrics()
+                    .getAllWardMetrics(OutageMetricsEngine.WINDOW_7D, System.currentTimeMillis());
+            JSONObject data = new JSONObject();
+            for (Map.Entry<String, OutageMetricsEngine.Metrics> entry : metrics.entrySet()) {
+                OutageMetricsEngine.Metrics ward = entry.getValue();
+                JSONObject json = new JSONObject();
+                json.put("down", ward.getDowntimeFraction());
+                json.put("uptime", ward.getUptimePercent());
+                json.put("outages", ward.getOutageCount());
+                data.put(entry.getKey(), json);
+            }
+            webView.evaluateJavascript("javascript:setHeatmap(" + data + ")", null);
+        } catch (JSONException e) {
+            Log.e(TAG, "❌ JSON error", e);
+        }
+    }
+
+    private FirebaseManager.OnRegionChangesListener createRegionsListener() {
+        return new FirebaseManager.OnRegionChangesListener() {
             @Override
-            public void onRegionsLoaded(List<Region> regions) {
-                Log.d(TAG, "🔄 Firebase update: " + regions.size() + " regions");
+            public void onRegionsChanged(RegionChangeSet changes, RegionStore store) {
+                Log.d(TAG, "🔄 Firebase update: " + changes);
                 if (isMapLoaded) {
-                    updateMapWithRegions(regions);
+                    applyRegionPatch(changes.getAdded(), changes.getModified(), changes.getRemoved());
+                    // Hitung ulang heatmap dengan transisi terbaru dari OutageMetricsEngine
+                    if (heatmapEnabled) scheduleHeatmapRefresh();
                 }
             }
 
@@ -100,47 +222,62 @@ public class MapsFragment extends Fragment {
             public void onError(String error) {
                 Log.e(TAG, "❌ Firebase error: " + error);
             }
-        });
+        };
     }
 
-    private void loadRegionsData() {
-        firebaseManager.getRegions(new FirebaseManager.OnRegionsLoadedListener() {
-            @Override
-            public void onRegionsLoaded(List<Region> regions) {
-                Log.d(TAG, "📊 Initial load: " + regions.size() + " regions");
-                updateMapWithRegions(regions);
-            }
+    /**
+     * Dipanggil sekali oleh map.html setelah layer GeoJSON siap. Snapshot yang
+     * datang sebelumnya sudah tersimpan di RegionStore, jadi cukup dikirim satu kali.
+     */
+    private void onMapReady() {
+        if (isMapLoaded || getActivity() == null) return;
+        isMapLoaded = true;
 
-            @Override
-            public void onError(String error) {
-                Log.e(TAG, "❌ Error loading: " + error);
-            }
-        });
+        pushIssuesOnly();
+        pushHeatmap();
+        RegionStore store = issuesOnly
+                ? firebaseManager.getIssueStore()
+                : firebaseManager.getRegionStore();
+        List<Region> regions = store.getAll();
+        Log.d(TAG, "🗺️ Map ready | Initial push: " + regions.size() + " regions");
+        applyRegionPatch(regions, Collections.emptyList(), Collections.emptySet());
     }
 
-    private void updateMapWithRegions(List<Region> regions) {
+    /**
+     * Kirim hanya region yang berubah ke peta. Di sisi JS, hanya layer milik
+     * region tersebut yang di-restyle (lihat applyRegionPatch di map.html).
+     */
+    private void applyRegionPatch(Collection<Region> added, Collection<Region> modified,
+                                  Collection<String> removed) {
         if (!isMapLoaded || getActivity() == null) return;
+        if (added.isEmpty() && modified.isEmpty() && removed.isEmpty()) return;
 
         try {
-            JSONArray jsonArray = new JSONArray();
-            for (Region region : regions) {
-                JSONObject jsonObject = new JSONObject();
-                jsonObject.put("id", region.getId());
-                jsonObject.put("name", region.getName());
-                jsonObject.put("status", region.getStatus());
-                jsonObject.put("info", region.getInfo());
-                jsonArray.put(jsonObject);
+            JSONArray upserts = new JSONArray();
+            for (Region region : added) {
+                upserts.put(toJson(region));
+            }
+            for (Region region : modified) {
+                upserts.put(toJson(region));
+            }
+
+            JSONArray removedIds = new JSONArray();
+            for (String regionId : removed) {
+                removedIds.put(regionId);
             }
 
-            String jsonString = jsonArray.toString()
-                    .replace("\\", "\\\\")
-                    .replace("'", "\\'");
+            JSONObject patch = new JSONObject();
+            patch.put("upserts", upserts);
+            patch.put("removed", removedIds);
 
-            String javascript = "javascript:updateAllPolygons('" + jsonString + "')";
+            // JSON adalah literal JS yang valid, jadi tidak perlu escape + JSON.parse
+            String javascript = "javascript:applyRegionPatch(" + patch + ")";
+            int patchSize = upserts.length() + removedIds.length();
 
             getActivity().runOnUiThread(() -> {
+                if (webView == null) return;
                 webView.evaluateJavascript(javascript, value -> {
-                    Log.d(TAG, "✅ Map updated with " + regions.size() + " regions");
+                    Log.d(TAG, "✅ Map patched with " + patchSize + " changes");
                 });
             });
         } catch (JSONException e) {
@@ -148,21 +285,45 @@ public class MapsFragment extends Fragment {
         }
     }
 
+    private JSONObject toJson(Region region) throws JSONException {
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("id", region.getId());
+        jsonObject.put("name", region.getName());
+        // Kunci status kanonik (lihat RegionStatus), jadi JS tidak perlu toLowerCase
+        jsonObject.put("status", region.getStatusType().getKey());
+        jsonObject.put("info", region.getInfo());
+        jsonObject.put("pending", region.isPendingWrite());
+        return jsonObject;
+    }
+
     @Override
     public void onResume() {
         super.onResume();
-        if (isMapLoaded) {
-            String role = roleManager.getRole();
-            Log.d(TAG, "🔄 Fragment resumed | Re-setting role: " + role);
-            webView.evaluateJavascript("javascript:setUserRole('" + role + "')", null);
-        }
+        if (webView != null) webView.onResume();
+        // Subscribe hanya selama tab terlihat; replay dari store menyusulkan
+        // perubahan yang terlewat selama tab disembunyikan
+        subscribe();
+        // Riwayat hanya dimuat ulang jika kedaluwarsa atau feed sempat terputus
+        if (heatmapEnabled) refreshHeatmap();
+        // Role tidak perlu di-set ulang di sini: MapWebViewPool meneruskan
+        // perubahan role lewat RoleManager.OnRoleChangedListener
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        // Lepas subscriber milik fragment ini saja; fragment lain tetap menerima update
+        unsubscribe();
+        cancelHeatmapRefresh();
+        if (webView != null) webView.onPause();
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
-        if (webView != null) {
-            webView.destroy();
-        }
+        // WebView dikembalikan ke pool, bukan di-destroy, supaya state peta bertahan
+        webViewPool.release(webView);
+        webView = null;
+        isMapLoaded = false;
     }
 }
\ No newline at end of file
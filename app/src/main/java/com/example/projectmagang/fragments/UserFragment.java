@@ -9,6 +9,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -19,9 +20,18 @@ import androidx.fragment.app.Fragment;
 import com.example.projectmagang.R;
 import com.example.projectmagang.activities.LoginActivity;
 import com.example.projectmagang.managers.FirebaseManager;
+import com.example.projectmagang.managers.MapWebViewPool;
+import com.example.projectmagang.managers.RegionRollup;
+import com.example.projectmagang.managers.RegionStore;
 import com.example.projectmagang.managers.RoleManager;
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionStatistics;
+import com.example.projectmagang.models.RegionStatus;
+import com.example.projectmagang.workers.RegionSyncWorker;
 import com.google.firebase.auth.FirebaseUser;
 
+import java.util.List;
+
 public class UserFragment extends Fragment {
 
     private TextView tvName, tvEmail, tvRole, tvAppVersion;
@@ -135,91 +145,65 @@ public class UserFragment extends Fragment {
                 .show();
     }
 
-    // ========== DISTRICTS DIALOG (KELURAHAN) ==========
+    // ========== DISTRICTS DIALOG (KECAMATAN → KELURAHAN) ==========
     private void showDistrictsDialog() {
-        // Data kelurahan dikelompokkan per kecamatan
-        String[] districts = {
-                "PALU BARAT (7 kelurahan):",
-                "  • Kawatuna",
-                "  • Lasoani",
-                "  • Layana Indah",
-                "  • Poboya",
-                "  • Talise",
-                "  • Tanamodindi",
-                "  • Tondo",
-                "",
-                "PALU SELATAN (6 kelurahan):",
-                "  • Balaroa",
-                "  • Baru",
-                "  • Kamonji",
-                "  • Lere",
-                "  • Siranindi",
-                "  • Ujuna",
-                "",
-                "PALU TIMUR (5 kelurahan):",
-                "  • Birobuli Selatan",
-                "  • Birobuli Utara",
-                "  • Petobo",
-                "  • Tatura Selatan",
-                "  • Tatura Utara",
-                "",
-                "PALU UTARA (5 kelurahan):",
-                "  • Besusu Barat",
-                "  • Besusu Tengah",
-                "  • Besusu Timur",
-                "  • Lolu Selatan",
-                "  • Lolu Utara",
-                "",
-                "TATANGA (5 kelurahan):",
-                "  • Lambara",
-                "  • Kayumalue Pajeko",
-                "  • Mamboro",
-                "  • Mamboro Barat",
-                "  • Taipa",
-                "",
-                "ULUJADI (5 kelurahan):",
-                "  • Bayaoge",
-                "  • Duyu",
-                "  • Nunu",
-                "  • Palupi",
-                "  • Pengawu",
-                "",
-                "MANTIKULORE (4 kelurahan):",
-                "  • Tawanjuka",
-                "  • Baiya",
-                "  • Lambara",
-                "  • Panau",
-                "",
-                "TAWAELI (8 kelurahan):",
-                "  • Pantoloan",
-                "  • Pantoloan Boya",
-                "  • Buluri",
-                "  • Donggala Kodi",
-                "  • Kabonena",
-                "  • Silae",
-                "  • Tipo",
-                "  • Watusampu"
-        };
+        // Pengelompokan diturunkan dari geometri kecamatan, hitungan dari RegionRollup
+        RegionRollup rollup = firebaseManager.getRegionStore().getRollup();
+        List<RegionRollup.DistrictSummary> summaries = rollup.getDistrictSummaries();
+        if (summaries.isEmpty()) {
+            Toast.makeText(requireContext(), "Data kecamatan sedang dimuat", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        int wardCount = 0;
+        String[] items = new String[summaries.size()];
+        for (int i = 0; i < summaries.size(); i++) {
+            RegionRollup.DistrictSummary summary = summaries.get(i);
+            RegionStatistics stats = summary.getStatistics();
+            wardCount += summary.getWardIds().size();
+            items[i] = summary.getName().toUpperCase() + " (" + summary.getWardIds().size() + " kelurahan)"
+                    + "\n🟥 " + stats.getGangguanCount() + "   🟧 " + stats.getDikerjakanCount()
+                    + "   🟩 " + stats.getNormalCount();
+        }
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("🗺️ " + summaries.size() + " Kecamatan, " + wardCount + " Kelurahan")
+                .setItems(items, (dialog, which) -> showDistrictWardsDialog(rollup, summaries.get(which)))
+                .setPositiveButton("Tutup", null)
+                .show();
+    }
 
+    private void showDistrictWardsDialog(RegionRollup rollup, RegionRollup.DistrictSummary summary) {
+        RegionStore store = firebaseManager.getRegionStore();
         StringBuilder message = new StringBuilder();
-        message.append("Aplikasi ini memantau status jaringan di 46 kelurahan Kota Palu:\n\n");
 
-        for (String district : districts) {
-            message.append(district).append("\n");
+        for (String wardId : summary.getWardIds()) {
+            Region region = store.get(wardId);
+            String name = region != null && region.getName() != null
+                    ? region.getName() : rollup.getWardName(wardId);
+            message.append(statusMarker(region)).append(" ").append(name);
+            if (region != null && region.getInfo() != null && !region.getInfo().isEmpty()) {
+                message.append("\n      ").append(region.getInfo());
+            }
+            message.append("\n");
         }
 
-        message.append("\n\n📊 LEGEND STATUS:\n");
+        message.append("\n📊 LEGEND STATUS:\n");
         message.append("🟩 Normal - Jaringan beroperasi normal\n");
         message.append("🟥 Gangguan - Terdapat gangguan jaringan\n");
         message.append("🟧 Dikerjakan - Sedang dalam perbaikan");
 
         new AlertDialog.Builder(requireContext())
-                .setTitle("🗺️ Daftar Kelurahan")
+                .setTitle("📍 " + summary.getName())
                 .setMessage(message.toString())
                 .setPositiveButton("Tutup", null)
                 .show();
     }
 
+    private static String statusMarker(Region region) {
+        return (region != null ? region.getStatusType() : RegionStatus.UNKNOWN).getMarker();
+    }
+
     // ========== FEATURES DIALOG ==========
     private void showFeaturesDialog() {
         String features = "📱 Fitur Aplikasi:\n\n" +
@@ -280,6 +264,12 @@ public class UserFragment extends Fragment {
         // Clear role cache
         roleManager.clear();
 
+        // Stop background sync and drop this user's outage notifications
+        RegionSyncWorker.cancel(requireContext());
+
+        // Drop the pooled map (it holds the previous user's role)
+        MapWebViewPool.getInstance().destroy();
+
         // Navigate to login
         Intent intent = new Intent(requireActivity(), LoginActivity.class);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -0,0 +1,123 @@
+package com.example.projectmagang.geometry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pembaca format biner .pgeo yang dihasilkan task {@code encodeGeometry}
+ * (lihat GeoJsonEncoder di buildSrc dan decodePgeo di map.html).
+ */
+final class PgeoReader {
+    private static final byte[] MAGIC = {'P', 'G', 'E', 'O'};
+    private static final int VERSION = 1;
+
+    private final byte[] data;
+    private int pos;
+
+    private int scale;
+    private final List<RegionShape> shapes = new ArrayList<>();
+
+    private PgeoReader(byte[] data) {
+        this.data = data;
+    }
+
+    static PgeoReader read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        byte[] buffer = new byte[8 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+
+        PgeoReader reader = new PgeoReader(out.toByteArray());
+        try {
+            reader.parse();
+        } catch (IndexOutOfBoundsException e) {
+            // Termasuk panjang string yang melewati akhir data
+            throw new IOException("Truncated .pgeo data", e);
+        }
+        return reader;
+    }
+
+    int getScale() {
+        return scale;
+    }
+
+    List<RegionShape> getShapes() {
+        return shapes;
+    }
+
+    private void parse() throws IOException {
+        for (byte b : MAGIC) {
+            if (data[pos++] != b) throw new IOException("Not a .pgeo file");
+        }
+        int version = data[pos++];
+        if (version != VERSION) throw new IOException("Unsupported .pgeo version " + version);
+
+        scale = (int) readVarint();
+        int featureCount = (int) readVarint();
+        for (int f = 0; f < featureCount; f++) {
+            shapes.add(readFeature());
+        }
+    }
+
+    private RegionShape readFeature() {
+        String id = readString();
+        String name = readString();
+        readString(); // status bawaan GeoJSON, status asli dari Firestore
+        readString(); // info
+        int minX = (int) readZigzag();
+        int minY = (int) readZigzag();
+        int maxX = (int) readZigzag();
+        int maxY = (int) readZigzag();
+
+        int polygonCount = (int) readVarint();
+        int[][][] polygons = new int[polygonCount][][];
+        for (int p = 0; p < polygonCount; p++) {
+            int ringCount = (int) readVarint();
+            polygons[p] = new int[ringCount][];
+            for (int r = 0; r < ringCount; r++) {
+                int pointCount = (int) readVarint();
+                int[] ring = new int[pointCount * 2];
+                long x = minX;
+                long y = minY;
+                for (int i = 0; i < pointCount; i++) {
+                    x += readZigzag();
+                    y += readZigzag();
+                    ring[i * 2] = (int) x;
+                    ring[i * 2 + 1] = (int) y;
+                }
+                polygons[p][r] = ring;
+            }
+        }
+        return new RegionShape(id, name, minX, minY, maxX, maxY, polygons);
+    }
+
+    private String readString() {
+        int length = (int) readVarint();
+        String value = new String(data, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+
+    private long readZigzag() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarint() {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[pos++];
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+}
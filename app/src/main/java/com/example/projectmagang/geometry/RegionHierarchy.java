@@ -0,0 +1,130 @@
+package com.example.projectmagang.geometry;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pengelompokan kecamatan → kelurahan, diturunkan dari geometri (bukan
+ * daftar yang ditulis tangan): tiap kelurahan masuk ke kecamatan yang memuat
+ * titik interiornya.
+ */
+public final class RegionHierarchy {
+    private static final String TAG = "RegionHierarchy";
+
+    private static RegionHierarchy loaded;
+
+    /**
+     * Satu kecamatan beserta id kelurahan di dalamnya (urut nama).
+     */
+    public static final class District {
+        private final String id;
+        private final String name;
+        private final List<String> wardIds;
+
+        District(String id, String name, List<String> wardIds) {
+            this.id = id;
+            this.name = name;
+            this.wardIds = Collections.unmodifiableList(wardIds);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getWardIds() {
+            return wardIds;
+        }
+    }
+
+    private final List<District> districts;
+    private final Map<String, Integer> districtIndexByWard;
+    private final Map<String, String> wardNames;
+
+    private RegionHierarchy(List<District> districts, Map<String, Integer> districtIndexByWard,
+                            Map<String, String> wardNames) {
+        this.districts = Collections.unmodifiableList(districts);
+        this.districtIndexByWard = districtIndexByWard;
+        this.wardNames = wardNames;
+    }
+
+    /**
+     * Muat hierarki dari aset geometri (di-cache). Jangan dari main thread.
+     */
+    public static synchronized RegionHierarchy load(Context context) throws IOException {
+        if (loaded == null) {
+            loaded = build(RegionLocator.wards(context), RegionLocator.districts(context));
+        }
+        return loaded;
+    }
+
+    public static RegionHierarchy build(RegionLocator wards, RegionLocator districts) {
+        List<RegionShape> districtShapes = districts.getShapes();
+        Map<String, Integer> indexById = new HashMap<>();
+        List<List<RegionShape>> members = new ArrayList<>();
+        for (int i = 0; i < districtShapes.size(); i++) {
+            indexById.put(districtShapes.get(i).getId(), i);
+            members.add(new ArrayList<>());
+        }
+
+        Map<String, Integer> districtIndexByWard = new HashMap<>();
+        Map<String, String> wardNames = new HashMap<>();
+        for (RegionShape ward : wards.getShapes()) {
+            wardNames.put(ward.getId(), ward.getName());
+
+            int[] point = ward.interiorPoint();
+            RegionShape district = districts.locateQuantized(point[0], point[1]);
+            if (district == null) {
+                Log.w(TAG, "⚠️ Ward outside every district: " + ward.getId());
+                continue;
+            }
+            int index = indexById.get(district.getId());
+            districtIndexByWard.put(ward.getId(), index);
+            members.get(index).add(ward);
+        }
+
+        List<District> result = new ArrayList<>(districtShapes.size());
+        for (int i = 0; i < districtShapes.size(); i++) {
+            List<RegionShape> wardsInDistrict = members.get(i);
+            wardsInDistrict.sort((a, b) -> a.getName().compareToIgnoreCase(b.getName()));
+            List<String> wardIds = new ArrayList<>(wardsInDistrict.size());
+            for (RegionShape ward : wardsInDistrict) {
+                wardIds.add(ward.getId());
+            }
+            RegionShape shape = districtShapes.get(i);
+            result.add(new District(shape.getId(), shape.getName(), wardIds));
+        }
+
+        Log.d(TAG, "✅ " + result.size() + " districts, " + districtIndexByWard.size() + " wards mapped");
+        return new RegionHierarchy(result, districtIndexByWard, wardNames);
+    }
+
+    public List<District> getDistricts() {
+        return districts;
+    }
+
+    /**
+     * @return index kecamatan di {@link #getDistricts()}, atau -1 jika tidak diketahui
+     */
+    public int getDistrictIndex(String wardId) {
+        Integer index = districtIndexByWard.get(wardId);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Nama kelurahan dari aset geometri (fallback bila region belum ada di store).
+     */
+    public String getWardName(String wardId) {
+        return wardNames.get(wardId);
+    }
+}
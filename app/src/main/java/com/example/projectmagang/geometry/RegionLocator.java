@@ -0,0 +1,127 @@
+package com.example.projectmagang.geometry;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Menjawab "koordinat ini masuk kelurahan/kecamatan mana?" di sisi Java,
+ * tanpa WebView. Geometri dibaca dari aset .pgeo (hasil encode
+ * {@code src/main/geodata/*.geojson} saat build) ke dalam R-tree STR.
+ *
+ * <p>Immutable setelah dibuat, jadi satu instance bisa dipakai dari thread
+ * mana saja. Lookup tidak mengalokasikan apa pun selain stack traversal kecil.</p>
+ */
+public final class RegionLocator {
+    private static final String TAG = "RegionLocator";
+
+    public static final String WARDS_ASSET = "palu_ward.pgeo";
+    public static final String DISTRICTS_ASSET = "palu_districts.pgeo";
+
+    private static final Map<String, RegionLocator> loaded = new HashMap<>();
+
+    private final int scale;
+    private final List<RegionShape> shapes;
+    private final Map<String, RegionShape> shapesById;
+    private final StrTree tree;
+    private final StrTree.ItemTest containsTest;
+
+    private RegionLocator(int scale, List<RegionShape> shapes) {
+        this.scale = scale;
+        this.shapes = Collections.unmodifiableList(shapes);
+        this.shapesById = new HashMap<>(shapes.size() * 2);
+
+        int[] bounds = new int[shapes.size() * 4];
+        for (int i = 0; i < shapes.size(); i++) {
+            RegionShape shape = shapes.get(i);
+            shapesById.put(shape.getId(), shape);
+            bounds[i * 4] = shape.getMinX();
+            bounds[i * 4 + 1] = shape.getMinY();
+            bounds[i * 4 + 2] = shape.getMaxX();
+            bounds[i * 4 + 3] = shape.getMaxY();
+        }
+        this.tree = new StrTree(bounds);
+        this.containsTest = (item, x, y) -> this.shapes.get(item).contains(x, y);
+    }
+
+    /**
+     * Locator kelurahan (id sama dengan id dokumen region di Firestore).
+     * Dimuat sekali lalu di-cache; panggilan pertama membaca aset, jadi
+     * sebaiknya tidak di main thread.
+     */
+    public static RegionLocator wards(Context context) throws IOException {
+        return fromAsset(context, WARDS_ASSET);
+    }
+
+    /**
+     * Locator kecamatan.
+     */
+    public static RegionLocator districts(Context context) throws IOException {
+        return fromAsset(context, DISTRICTS_ASSET);
+    }
+
+    public static synchronized RegionLocator fromAsset(Context context, String assetName)
+            throws IOException {
+        RegionLocator locator = loaded.get(assetName);
+        if (locator == null) {
+            try (InputStream in = context.getApplicationContext().getAssets().open(assetName)) {
+                locator = read(in);
+            }
+            loaded.put(assetName, locator);
+            Log.d(TAG, "✅ Loaded " + assetName + " | " + locator.size() + " shapes");
+        }
+        return locator;
+    }
+
+    public static RegionLocator read(InputStream in) throws IOException {
+        PgeoReader reader = PgeoReader.read(in);
+        return new RegionLocator(reader.getScale(), reader.getShapes());
+    }
+
+    /**
+     * @return id region yang memuat titik, atau null jika di luar semua region
+     */
+    public String locate(double latitude, double longitude) {
+        RegionShape shape = locateShape(latitude, longitude);
+        return shape != null ? shape.getId() : null;
+    }
+
+    public RegionShape locateShape(double latitude, double longitude) {
+        return locateQuantized(quantize(longitude), quantize(latitude));
+    }
+
+    /**
+     * Versi {@link #locateShape} untuk koordinat yang sudah terkuantisasi
+     * dengan {@link #getScale()} (x = lon, y = lat).
+     */
+    public RegionShape locateQuantized(int x, int y) {
+        int item = tree.findFirst(x, y, containsTest);
+        return item >= 0 ? shapes.get(item) : null;
+    }
+
+    public RegionShape getShape(String regionId) {
+        return shapesById.get(regionId);
+    }
+
+    public List<RegionShape> getShapes() {
+        return shapes;
+    }
+
+    public int size() {
+        return shapes.size();
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    private int quantize(double degrees) {
+        return (int) Math.round(degrees * scale);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.projectmagang.geometry;
+
+import java.util.Arrays;
+
+/**
+ * Geometri satu region (kelurahan/kecamatan) dalam koordinat terkuantisasi
+ * ({@code round(derajat * scale)}), sama seperti di file .pgeo.
+ *
+ * <p>Tiap ring disimpan sebagai int[] berselang-seling x,y (lon,lat) supaya
+ * uji titik tidak membuat objek sama sekali.</p>
+ */
+public final class RegionShape {
+    private final String id;
+    private final String name;
+    private final int minX, minY, maxX, maxY;
+    // polygons[p][r] = ring r dari polygon p: {x0, y0, x1, y1, ...}
+    private final int[][][] polygons;
+
+    RegionShape(String id, String name, int minX, int minY, int maxX, int maxY,
+                int[][][] polygons) {
+        this.id = id;
+        this.name = name;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.polygons = polygons;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    int[][][] getPolygons() {
+        return polygons;
+    }
+
+    public boolean boundsContain(int x, int y) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+    /**
+     * Uji titik dengan aturan even-odd per polygon, jadi lubang (inner ring)
+     * otomatis dikecualikan. Semua perhitungan dalam long, tanpa floating point.
+     */
+    public boolean contains(int x, int y) {
+        if (!boundsContain(x, y)) return false;
+
+        for (int[][] rings : polygons) {
+            boolean inside = false;
+            for (int[] ring : rings) {
+                if (crossings(ring, x, y)) inside = !inside;
+            }
+            if (inside) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Titik yang pasti berada di dalam region (tidak harus centroid): tengah
+     * potongan terlebar garis horizontal pada pertengahan tinggi bounding box.
+     *
+     * @return {x, y} terkuantisasi
+     */
+    public int[] interiorPoint() {
+        int y = (int) (((long) minY + maxY) / 2);
+        int[] xs = new int[16];
+        int count = 0;
+
+        for (int[][] rings : polygons) {
+            for (int[] ring : rings) {
+                int n = ring.length;
+                for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+                    long xi = ring[i], yi = ring[i + 1];
+                    long xj = ring[j], yj = ring[j + 1];
+                    if ((yi > y) == (yj > y)) continue;
+                    if (count == xs.length) xs = Arrays.copyOf(xs, count * 2);
+                    xs[count++] = (int) (xi + (y - yi) * (xj - xi) / (yj - yi));
+                }
+            }
+        }
+
+        Arrays.sort(xs, 0, count);
+        int bestStart = minX, bestEnd = minX;
+        // Perpotongan berpasangan (masuk, keluar) menurut aturan even-odd
+        for (int i = 0; i + 1 < count; i += 2) {
+            if ((long) xs[i + 1] - xs[i] > (long) bestEnd - bestStart) {
+                bestStart = xs[i];
+                bestEnd = xs[i + 1];
+            }
+        }
+        return new int[]{(int) (((long) bestStart + bestEnd) / 2), y};
+    }
+
+    /**
+     * @return true jika sinar horizontal ke kanan dari (x, y) memotong ring
+     *         sebanyak bilangan ganjil
+     */
+    private static boolean crossings(int[] ring, int x, int y) {
+        boolean odd = false;
+        int n = ring.length;
+        for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+            long xi = ring[i], yi = ring[i + 1];
+            long xj = ring[j], yj = ring[j + 1];
+            if ((yi > y) == (yj > y)) continue;
+
+            // x < xi + (y - yi) * (xj - xi) / (yj - yi), tanpa pembagian
+            long lhs = (x - xi) * (yj - yi);
+            long rhs = (y - yi) * (xj - xi);
+            if (yj > yi ? lhs < rhs : lhs > rhs) odd = !odd;
+        }
+        return odd;
+    }
+}
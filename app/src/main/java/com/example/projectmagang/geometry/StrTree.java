@@ -0,0 +1,163 @@
+package com.example.projectmagang.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * R-tree statis yang di-pack dengan Sort-Tile-Recursive (STR). Dibangun sekali
+ * dari bounding box item, lalu hanya dibaca, jadi aman dipakai banyak thread.
+ *
+ * <p>Node disimpan dalam array datar (tanpa objek per node): {@code bounds}
+ * berisi 4 int per node, anak node ada di {@code children[firstChild ..
+ * firstChild + childCount)} dan berupa id item untuk leaf atau id node untuk
+ * node internal.</p>
+ */
+final class StrTree {
+    private static final int NODE_CAPACITY = 8;
+
+    interface ItemTest {
+        boolean test(int item, int x, int y);
+    }
+
+    private final int[] bounds;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final boolean[] leaf;
+    private final int[] children;
+    private final int root;
+    private final int height;
+
+    /**
+     * @param itemBounds 4 int per item: minX, minY, maxX, maxY
+     */
+    StrTree(int[] itemBounds) {
+        int itemCount = itemBounds.length / 4;
+
+        List<int[]> nodeBounds = new ArrayList<>();
+        List<int[]> nodeRanges = new ArrayList<>(); // {firstChild, childCount, isLeaf}
+        int[] childList = new int[Math.max(itemCount * 2, NODE_CAPACITY)];
+        int childSize = 0;
+
+        int[] level = new int[itemCount];
+        for (int i = 0; i < itemCount; i++) level[i] = i;
+        int[] levelBounds = itemBounds;
+        boolean levelIsItems = true;
+        int levels = 0;
+
+        while (level.length > 1 || (levelIsItems && level.length == 1)) {
+            int[] sorted = strOrder(levelBounds, level.length);
+            int parentCount = (level.length + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            int[] nextLevel = new int[parentCount];
+            int[] nextBounds = new int[parentCount * 4];
+
+            for (int p = 0; p < parentCount; p++) {
+                int start = p * NODE_CAPACITY;
+                int end = Math.min(start + NODE_CAPACITY, level.length);
+                int[] box = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+
+                if (childSize + (end - start) > childList.length) {
+                    childList = Arrays.copyOf(childList, childList.length * 2);
+                }
+                int first = childSize;
+                for (int k = start; k < end; k++) {
+                    int position = sorted[k];
+                    childList[childSize++] = level[position];
+                    box[0] = Math.min(box[0], levelBounds[position * 4]);
+                    box[1] = Math.min(box[1], levelBounds[position * 4 + 1]);
+                    box[2] = Math.max(box[2], levelBounds[position * 4 + 2]);
+                    box[3] = Math.max(box[3], levelBounds[position * 4 + 3]);
+                }
+
+                nextLevel[p] = nodeBounds.size();
+                nodeBounds.add(box);
+                nodeRanges.add(new int[]{first, end - start, levelIsItems ? 1 : 0});
+                System.arraycopy(box, 0, nextBounds, p * 4, 4);
+            }
+
+            level = nextLevel;
+            levelBounds = nextBounds;
+            levelIsItems = false;
+            levels++;
+        }
+
+        int nodeCount = nodeBounds.size();
+        bounds = new int[nodeCount * 4];
+        firstChild = new int[nodeCount];
+        childCount = new int[nodeCount];
+        leaf = new boolean[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            System.arraycopy(nodeBounds.get(i), 0, bounds, i * 4, 4);
+            int[] range = nodeRanges.get(i);
+            firstChild[i] = range[0];
+            childCount[i] = range[1];
+            leaf[i] = range[2] == 1;
+        }
+        children = Arrays.copyOf(childList, childSize);
+        root = nodeCount > 0 ? level[0] : -1;
+        height = levels;
+    }
+
+    /**
+     * Cari item pertama yang bounding box-nya memuat (x, y) dan lolos {@code test}.
+     *
+     * @return id item, atau -1
+     */
+    int findFirst(int x, int y, ItemTest test) {
+        if (root < 0) return -1;
+
+        // Kedalaman maksimum height, tiap level paling banyak NODE_CAPACITY node tertunda
+        int[] stack = new int[height * NODE_CAPACITY + 1];
+        int top = 0;
+        stack[top++] = root;
+
+        while (top > 0) {
+            int node = stack[--top];
+            int b = node * 4;
+            if (x < bounds[b] || y < bounds[b + 1] || x > bounds[b + 2] || y > bounds[b + 3]) {
+                continue;
+            }
+
+            int first = firstChild[node];
+            int end = first + childCount[node];
+            if (leaf[node]) {
+                for (int i = first; i < end; i++) {
+                    if (test.test(children[i], x, y)) return children[i];
+                }
+            } else {
+                for (int i = first; i < end; i++) {
+                    stack[top++] = children[i];
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Urutan STR: urutkan berdasarkan pusat x, potong menjadi slice vertikal
+     * berisi S * kapasitas entry, lalu urutkan tiap slice berdasarkan pusat y.
+     */
+    private static int[] strOrder(int[] boxes, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+
+        Arrays.sort(order, (a, b) -> Long.compare(centerTwice(boxes, a, 0), centerTwice(boxes, b, 0)));
+
+        int leafCount = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceCount = (int) Math.ceil(Math.sqrt(leafCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+        for (int start = 0; start < count; start += sliceSize) {
+            int end = Math.min(start + sliceSize, count);
+            Arrays.sort(order, start, end,
+                    (a, b) -> Long.compare(centerTwice(boxes, a, 1), centerTwice(boxes, b, 1)));
+        }
+
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) result[i] = order[i];
+        return result;
+    }
+
+    private static long centerTwice(int[] boxes, int index, int axis) {
+        return (long) boxes[index * 4 + axis] + boxes[index * 4 + 2 + axis];
+    }
+}
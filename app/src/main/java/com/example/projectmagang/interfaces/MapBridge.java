@@ -0,0 +1,233 @@
+package com.example.projectmagang.interfaces;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.webkit.JavascriptInterface;
+import android.webkit.WebView;
+
+import androidx.webkit.JavaScriptReplyProxy;
+import androidx.webkit.WebMessageCompat;
+import androidx.webkit.WebViewAssetLoader;
+import androidx.webkit.WebViewCompat;
+import androidx.webkit.WebViewFeature;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bridge berbasis pesan antara map.html dan Android.
+ *
+ * <p>JS mengirim {@code {id, method, args}} lalu langsung lanjut; pesan
+ * diproses berurutan di thread "map-bridge", dan balasan {@code {id, ok,
+ * result|error}} dikirim balik secara async. Dengan {@code id = 0} tidak ada
+ * balasan (fire-and-forget).</p>
+ *
+ * <p>Transport utama: {@link WebViewCompat#addWebMessageListener} (hanya untuk
+ * origin appassets). Jika WebView belum mendukung, dipakai
+ * {@code @JavascriptInterface postMessage} dengan nama objek yang sama dan
+ * balasan lewat {@code evaluateJavascript}. Objek itu terlihat oleh halaman
+ * apa pun, jadi pesannya hanya diproses selama halaman utama berasal dari
+ * origin appassets (lihat {@link #onPageStarted}).</p>
+ */
+public class MapBridge {
+    private static final String TAG = "MapBridge";
+    public static final String JS_OBJECT = "AndroidBridge";
+    private static final String ALLOWED_ORIGIN = "https://" + WebViewAssetLoader.DEFAULT_DOMAIN;
+
+    /**
+     * Satu panggilan dari JS. resolve/reject boleh dipanggil dari thread mana saja,
+     * cukup sekali.
+     */
+    public interface Call {
+        String getMethod();
+
+        JSONObject getArgs();
+
+        void resolve(Object result);
+
+        void reject(String error);
+    }
+
+    /**
+     * Penangan method bridge; dipanggil di thread bridge, bukan main thread.
+     */
+    public interface MethodHandler {
+        void handle(Call call) throws Exception;
+    }
+
+    private interface ReplyChannel {
+        void post(String message);
+    }
+
+    private final WebView webView;
+    private final MethodHandler handler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+            new Thread(runnable, "map-bridge"));
+    private volatile boolean closed = false;
+    // Untuk transport fallback: halaman yang sedang dimuat berasal dari origin appassets
+    private volatile boolean trustedPage = false;
+
+    private MapBridge(WebView webView, MethodHandler handler) {
+        this.webView = webView;
+        this.handler = handler;
+    }
+
+    /**
+     * Pasang bridge ke WebView. Harus dipanggil di main thread sebelum loadUrl.
+     */
+    public static MapBridge attach(WebView webView, MethodHandler handler) {
+        MapBridge bridge = new MapBridge(webView, handler);
+
+        if (WebViewFeature.isFeatureSupported(WebViewFeature.WEB_MESSAGE_LISTENER)) {
+            WebViewCompat.addWebMessageListener(webView, JS_OBJECT,
+                    Collections.singleton(ALLOWED_ORIGIN), bridge::onWebMessage);
+            Log.d(TAG, "✅ Bridge attached (WebMessageListener)");
+        } else {
+            webView.addJavascriptInterface(new JavascriptTransport(bridge), JS_OBJECT);
+            Log.d(TAG, "✅ Bridge attached (JavascriptInterface fallback)");
+        }
+        return bridge;
+    }
+
+    /**
+     * Dipanggil dari WebViewClient.onPageStarted setiap navigasi.
+     */
+    public void onPageStarted(String url) {
+        trustedPage = url != null && url.startsWith(ALLOWED_ORIGIN + "/");
+        if (!trustedPage) Log.w(TAG, "⚠️ Untrusted page, fallback bridge disabled: " + url);
+    }
+
+    /**
+     * Lepas bridge (WebView dihancurkan); balasan yang masih tertunda dibuang.
+     */
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+    }
+
+    // Dipanggil di main thread oleh WebView
+    private void onWebMessage(WebView view, WebMessageCompat message, Uri sourceOrigin,
+                              boolean isMainFrame, JavaScriptReplyProxy replyProxy) {
+        if (!isMainFrame || message.getData() == null) return;
+        dispatch(message.getData(), replyProxy::postMessage);
+    }
+
+    private void dispatch(String raw, ReplyChannel channel) {
+        if (closed) return;
+        try {
+            executor.execute(() -> handleMessage(raw, channel));
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "⚠️ Bridge closed, dropping message");
+        }
+    }
+
+    private void handleMessage(String raw, ReplyChannel channel) {
+        BridgeCall call;
+        try {
+            JSONObject message = new JSONObject(raw);
+            JSONObject args = message.optJSONObject("args");
+            call = new BridgeCall(message.optLong("id"), message.getString("method"),
+                    args != null ? args : new JSONObject(), channel);
+        } catch (JSONException e) {
+            Log.e(TAG, "❌ Malformed bridge message: " + raw, e);
+            return;
+        }
+
+        try {
+            handler.handle(call);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Bridge method failed: " + call.method, e);
+            call.reject(e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private void reply(long id, ReplyChannel channel, boolean ok, Object value) {
+        if (id == 0 || closed) return;
+
+        String message;
+        try {
+            JSONObject reply = new JSONObject();
+            reply.put("id", id);
+            reply.put("ok", ok);
+            reply.put(ok ? "result" : "error", value != null ? value : JSONObject.NULL);
+            message = reply.toString();
+        } catch (JSONException e) {
+            Log.e(TAG, "❌ Error encoding reply", e);
+            return;
+        }
+
+        // Reply proxy dan evaluateJavascript hanya boleh dari main thread
+        mainHandler.post(() -> {
+            if (!closed) channel.post(message);
+        });
+    }
+
+    private final class BridgeCall implements Call {
+        private final long id;
+        private final String method;
+        private final JSONObject args;
+        private final ReplyChannel channel;
+        private boolean settled = false;
+
+        BridgeCall(long id, String method, JSONObject args, ReplyChannel channel) {
+            this.id = id;
+            this.method = method;
+            this.args = args;
+            this.channel = channel;
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+        @Override
+        public JSONObject getArgs() {
+            return args;
+        }
+
+        @Override
+        public synchronized void resolve(Object result) {
+            if (settled) return;
+            settled = true;
+            reply(id, channel, true, result);
+        }
+
+        @Override
+        public synchronized void reject(String error) {
+            if (settled) return;
+            settled = true;
+            reply(id, channel, false, error);
+        }
+    }
+
+    /**
+     * Fallback untuk WebView lama. Method ini hanya mengantrikan pesan dan
+     * langsung kembali, jadi JS tidak menunggu pekerjaan Java.
+     */
+    private static final class JavascriptTransport {
+        private final MapBridge bridge;
+
+        JavascriptTransport(MapBridge bridge) {
+            this.bridge = bridge;
+        }
+
+        @JavascriptInterface
+        public void postMessage(String message) {
+            if (!bridge.trustedPage) {
+                Log.w(TAG, "⚠️ Dropping bridge message from untrusted page");
+                return;
+            }
+            bridge.dispatch(message, reply -> bridge.webView.evaluateJavascript(
+                    "onBridgeMessage(" + JSONObject.quote(reply) + ")", null));
+        }
+    }
+}
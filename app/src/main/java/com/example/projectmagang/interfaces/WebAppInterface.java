@@ -1,66 +1,135 @@
-
 package com.example.projectmagang.interfaces;
 
-import android.app.Activity;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
-import android.webkit.JavascriptInterface;
 import android.widget.Toast;
 
 import com.example.projectmagang.managers.FirebaseManager;
 import com.example.projectmagang.managers.RoleManager;
+import com.example.projectmagang.models.RegionStatus;
+
+import org.json.JSONObject;
 
-public class WebAppInterface {
+/**
+ * Method yang bisa dipanggil map.html lewat {@link MapBridge}. Semua method
+ * berjalan di thread bridge; hanya pekerjaan UI/Firestore yang dipindah ke
+ * main thread.
+ */
+public class WebAppInterface implements MapBridge.MethodHandler {
     private static final String TAG = "WebAppInterface";
     private Context context;
+    // WebView bisa hidup di luar Activity (MapWebViewPool), jadi pakai main looper
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private FirebaseManager firebaseManager;
     private RoleManager roleManager;
+    private volatile OnMapReadyListener onMapReadyListener;
 
     public WebAppInterface(Context context) {
-        this.context = context;
+        this.context = context.getApplicationContext();
         this.firebaseManager = FirebaseManager.getInstance();
         this.roleManager = RoleManager.getInstance(context);
     }
 
-    @JavascriptInterface
-    public void onPolygonEdited(String regionId, String status, String info) {
+    @Override
+    public void handle(MapBridge.Call call) {
+        JSONObject args = call.getArgs();
+        switch (call.getMethod()) {
+            case "onPolygonEdited":
+                onPolygonEdited(call, args.optString("regionId"),
+                        args.optString("status"), args.optString("info"));
+                break;
+            case "onMapReady":
+                onMapReady();
+                call.resolve(null);
+                break;
+            case "getUserRole":
+                call.resolve(roleManager.getRole());
+                break;
+            case "getStatusPalette":
+                call.resolve(getStatusPalette());
+                break;
+            case "showToast":
+                showToast(args.optString("message"));
+                call.resolve(null);
+                break;
+            default:
+                Log.w(TAG, "⚠️ Unknown bridge method: " + call.getMethod());
+                call.reject("Unknown method: " + call.getMethod());
+        }
+    }
+
+    /**
+     * Hasil ke JS: "saved" atau "queued" (offline), reject jika gagal permanen.
+     */
+    private void onPolygonEdited(MapBridge.Call call, String regionId, String status, String info) {
         Log.d(TAG, "📝 Edit request: " + regionId + " | status: " + status);
 
         if (!roleManager.isAdmin()) {
-            ((Activity) context).runOnUiThread(() -> {
+            mainHandler.post(() -> {
                 Toast.makeText(context, "❌ Hanya admin yang dapat mengedit",
                         Toast.LENGTH_SHORT).show();
             });
+            call.reject("not_admin");
             return;
         }
 
-        ((Activity) context).runOnUiThread(() -> {
+        mainHandler.post(() -> {
             firebaseManager.updateRegion(regionId, status, info,
                     new FirebaseManager.OnCompleteListener() {
                         @Override
                         public void onSuccess() {
                             Toast.makeText(context, "✅ Status berhasil diperbarui",
                                     Toast.LENGTH_SHORT).show();
+                            call.resolve("saved");
                         }
 
                         @Override
                         public void onFailure(String error) {
-                            Toast.makeText(context, "❌ Gagal: " + error,
-                                    Toast.LENGTH_SHORT).show();
+                            // Peta dan daftar sudah dikembalikan ke nilai sebelumnya
+                            Toast.makeText(context, "❌ Gagal menyimpan, perubahan dibatalkan: " + error,
+                                    Toast.LENGTH_LONG).show();
+                            call.reject(error);
+                        }
+
+                        @Override
+                        public void onQueued() {
+                            Toast.makeText(context, "📴 Offline: perubahan disimpan dan akan dikirim otomatis",
+                                    Toast.LENGTH_LONG).show();
+                            call.resolve("queued");
                         }
                     });
         });
     }
 
-    @JavascriptInterface
-    public String getUserRole() {
-        return roleManager.getRole();
+    public void setOnMapReadyListener(OnMapReadyListener listener) {
+        this.onMapReadyListener = listener;
+    }
+
+    private void onMapReady() {
+        Log.d(TAG, "🗺️ Map ready signal received");
+        mainHandler.post(() -> {
+            OnMapReadyListener listener = onMapReadyListener;
+            if (listener != null) listener.onMapReady();
+        });
+    }
+
+    /**
+     * Palet status untuk map.html ({key: {color, label}}), supaya warna dan
+     * label peta berasal dari {@link RegionStatus} yang sama dengan UI native.
+     */
+    private JSONObject getStatusPalette() {
+        return RegionStatus.toPaletteJson();
     }
 
-    @JavascriptInterface
-    public void showToast(String message) {
-        ((Activity) context).runOnUiThread(() -> {
+    private void showToast(String message) {
+        mainHandler.post(() -> {
             Toast.makeText(context, message, Toast.LENGTH_SHORT).show();
         });
     }
-}
\ No newline at end of file
+
+    public interface OnMapReadyListener {
+        void onMapReady();
+    }
+}
@@ -1,34 +1,115 @@
 package com.example.projectmagang.managers;
 
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
+import com.example.projectmagang.geometry.RegionHierarchy;
 import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionChangeSet;
+import com.example.projectmagang.models.RegionHistoryEntry;
+import com.example.projectmagang.models.RegionStatistics;
+import com.example.projectmagang.models.RegionStatus;
+import com.example.projectmagang.models.RegionTimeline;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class FirebaseManager {
     private static final String TAG = "FirebaseManager";
     private static final String COLLECTION_REGIONS = "region";  // ✅ FIXED: sesuai Firebase Anda
+    private static final long OUTAGE_HISTORY_TTL_MS = TimeUnit.MINUTES.toMillis(15);
     private static final String COLLECTION_USERS = "users";
+    private static final long CACHE_SAVE_DELAY_MS = 2000;
 
     private static FirebaseManager instance;
 
     private final FirebaseFirestore db;
     private final FirebaseAuth auth;
-    private ListenerRegistration regionsListener;
+    private final ExecutorService decodeExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ScheduledExecutorService cacheExecutor;
+    private final AtomicBoolean cacheSaveScheduled = new AtomicBoolean(false);
+    private final RegionSubscriptionHub regionsHub;
+    // Hanya region bermasalah (gangguan/dikerjakan); snapshot kecil saat semua normal
+    private final RegionSubscriptionHub issuesHub;
+    private final RegionStatisticsSource statisticsSource;
+    private final OutageMetricsEngine outageMetrics = new OutageMetricsEngine();
+    // elapsedRealtime saat riwayat terakhir dimuat ke outageMetrics; 0 = belum
+    private volatile long outageHistoryLoadedAt = 0;
+    // Listener loadOutageHistory selama query sedang berjalan (main thread); null = tidak ada
+    private List<OnCompleteListener> outageHistoryWaiters;
+    private final RegionWriteQueue writeQueue;
+    private RegionCache regionCache;
+    private RegionEditOutbox outbox;
+    private final Runnable replayRunnable = this::replayOutbox;
+    // Token edit jika outbox belum aktif (lihat RegionSubscriptionHub.applyOptimistic)
+    private final AtomicLong localEditToken = new AtomicLong();
+    private final Map<OnRegionsLoadedListener, OnRegionChangesListener> legacyListeners =
+            new HashMap<>();
 
     private FirebaseManager() {
         db = FirebaseFirestore.getInstance();
         auth = FirebaseAuth.getInstance();
+        // Satu thread khusus untuk decode snapshot, supaya main thread bebas dari parsing
+        decodeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "region-decode");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+        cacheExecutor = Executors.newSingleThreadScheduledExecutor(runnable ->
+                new Thread(runnable, "region-cache"));
+        writeQueue = new RegionWriteQueue(db, db.collection(COLLECTION_REGIONS));
+        regionsHub = new RegionSubscriptionHub("all",
+                db.collection(COLLECTION_REGIONS), new RegionStore(), decodeExecutor);
+        issuesHub = new RegionSubscriptionHub("issues",
+                db.collection(COLLECTION_REGIONS)
+                        .whereIn(RegionMapper.FIELD_STATUS, RegionStatus.issueQueryValues()),
+                new RegionStore(), decodeExecutor);
+        statisticsSource = new RegionStatisticsSource(db.collection(COLLECTION_REGIONS),
+                regionsHub);
+        regionsHub.getStore().setMetricsEngine(outageMetrics);
+        issuesHub.getStore().setMetricsEngine(outageMetrics);
+        // Satu listener saja sudah melihat semua transisi masuk/keluar gangguan;
+        // celah feed hanya ada saat keduanya lepas
+        Runnable onHubDetached = () -> {
+            if (!regionsHub.isAttached() && !issuesHub.isAttached()) {
+                outageMetrics.markFeedGap(System.currentTimeMillis());
+            }
+        };
+        regionsHub.setOnDetachedListener(onHubDetached);
+        issuesHub.setOnDetachedListener(onHubDetached);
+        regionsHub.setOnResyncedListener(outageMetrics::closeFeedGap);
+        issuesHub.setOnResyncedListener(outageMetrics::closeFeedGap);
     }
 
     public static synchronized FirebaseManager getInstance() {
@@ -38,105 +119,448 @@ public class FirebaseManager {
         return instance;
     }
 
+    /**
+     * Aktifkan cache region lokal. Cache dibaca di background secara paralel
+     * dengan startup WebView/Firestore, lalu ditulis ulang (debounced) setiap
+     * kali snapshot mengubah data. Hierarki kecamatan untuk agregat per
+     * kecamatan juga dimuat di executor yang sama.
+     */
+    public synchronized void enableLocalCache(Context context) {
+        if (regionCache != null) return;
+
+        regionCache = new RegionCache(context);
+        regionsHub.setOnStoreChangedListener(this::scheduleCacheSave);
+        cacheExecutor.execute(() -> regionsHub.seed(regionCache.load()));
+        Context appContext = context.getApplicationContext();
+        cacheExecutor.execute(() -> {
+            // Hierarki kecamatan untuk statistik per kecamatan (RegionRollup)
+            try {
+                regionsHub.getStore().getRollup().setHierarchy(RegionHierarchy.load(appContext));
+            } catch (IOException e) {
+                Log.e(TAG, "❌ Failed to load region hierarchy", e);
+            }
+        });
+
+        // Edit admin yang tertunda dari sesi sebelumnya: tampilkan lagi lalu kirim ulang
+        outbox = new RegionEditOutbox(context, cacheExecutor);
+        cacheExecutor.execute(() -> {
+            List<RegionEditOutbox.Edit> pending = outbox.load();
+            if (pending.isEmpty()) return;
+            mainHandler.post(() -> {
+                for (RegionEditOutbox.Edit edit : pending) {
+                    applyOptimisticEdit(edit.regionId, edit.status, edit.info, edit.seq);
+                }
+                replayOutbox();
+            });
+        });
+
+        ConnectivityManager connectivityManager =
+                appContext.getSystemService(ConnectivityManager.class);
+        if (connectivityManager != null) {
+            connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    mainHandler.post(() -> {
+                        if (outbox.size() == 0) return;
+                        Log.d(TAG, "📶 Network available, replaying outbox");
+                        outbox.resetBackoff();
+                        replayOutbox();
+                    });
+                }
+            });
+        }
+    }
+
+    private void scheduleCacheSave() {
+        if (!cacheSaveScheduled.compareAndSet(false, true)) return;
+
+        cacheExecutor.schedule(() -> {
+            cacheSaveScheduled.set(false);
+            regionCache.save(regionsHub.getStore().getAll());
+        }, CACHE_SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
     public FirebaseUser getCurrentUser() {
         return auth.getCurrentUser();
     }
 
+    /**
+     * Update status + info region. Edit tidak langsung ditulis: edit beruntun
+     * dalam ~300 ms digabung per region dan dikirim sebagai WriteBatch.
+     * Perubahan langsung diterapkan secara optimistic ke store dan dibatalkan
+     * (rollback) jika penulisan gagal.
+     */
     public void updateRegion(String regionId, String status, String info, OnCompleteListener listener) {
         if (regionId == null || regionId.trim().isEmpty()) {
             if (listener != null) listener.onFailure("Region ID tidak valid");
             return;
         }
 
-        if (status == null || status.trim().isEmpty()) {
+        RegionStatus statusType = RegionStatus.parse(status);
+        if (statusType == RegionStatus.UNKNOWN) {
             if (listener != null) listener.onFailure("Status tidak valid");
             return;
         }
 
-        Map<String, Object> updates = new HashMap<>();
-        updates.put("status", status.toLowerCase());
-        updates.put("info", info != null ? info : "");
-        updates.put("lastUpdate", FieldValue.serverTimestamp());
+        Log.d(TAG, "📝 Queueing region update: " + regionId + " | status: " + statusType.getKey());
+
+        // Dicatat dulu di outbox (jika aktif) supaya tidak hilang saat offline / app ditutup
+        RegionEditOutbox.Edit edit = outbox != null ? outbox.record(regionId, statusType, info) : null;
+        long token = edit != null ? edit.seq : -localEditToken.incrementAndGet();
+        String editId = edit != null ? edit.editId : UUID.randomUUID().toString();
+
+        // Tampilkan edit di peta dan daftar sekarang juga, sebelum Firestore menjawab
+        applyOptimisticEdit(regionId, statusType, info, token);
+        submitEdit(regionId, editId, statusType, info, edit, token, listener);
+    }
+
+    private void applyOptimisticEdit(String regionId, RegionStatus status, String info, long token) {
+        Region current = regionsHub.getStore().get(regionId);
+        regionsHub.applyOptimistic(new Region(regionId,
+                current != null ? current.getName() : null,
+                status.getKey(), info != null ? info : "", Timestamp.now(), true), token);
+    }
+
+    /**
+     * Kirim edit lewat RegionWriteQueue (digabung jadi WriteBatch). Setelah
+     * di-commit, write dipegang antrian mutasi lokal Firestore (yang juga
+     * mengirimnya saat offline / setelah restart), jadi edit ditandai
+     * handedOff dan tidak diputar ulang dari outbox. "Queued" dilaporkan saat
+     * dokumen masih hasPendingWrites. Gagal sementara: edit tetap di outbox dan
+     * dikirim ulang dengan backoff. Gagal permanen: edit dibuang dan tampilan
+     * optimistic di-rollback.
+     */
+    private void submitEdit(String regionId, String editId, RegionStatus status, String info,
+                            RegionEditOutbox.Edit edit, long token, OnCompleteListener listener) {
+        if (edit != null) outbox.markInFlight(edit);
+
+        writeQueue.enqueue(regionId, editId, status, info, new RegionWriteQueue.WriteCallback() {
+            @Override
+            public void onSuccess() {
+                if (edit != null) {
+                    outbox.remove(edit);
+                    outbox.resetBackoff();
+                }
+                regionsHub.confirmOptimistic(regionId, token);
+                statisticsSource.invalidate();
+                if (listener != null) listener.onSuccess();
+            }
+
+            @Override
+            public void onSubmitted() {
+                regionsHub.markSubmitted(regionId, token);
+                if (edit != null) outbox.markHandedOff(edit);
+            }
+
+            @Override
+            public void onQueued() {
+                if (listener != null) listener.onQueued();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (edit != null && RegionWriteQueue.isTransient(e)) {
+                    long delay = outbox.markRetry(edit);
+                    Log.w(TAG, "📴 Edit kept in outbox: " + regionId + " | retry in " + delay + " ms");
+                    scheduleReplay(delay);
+                    if (listener != null) listener.onQueued();
+                    return;
+                }
+
+                if (edit != null) outbox.remove(edit);
+                regionsHub.rollbackOptimistic(regionId, token);
+                if (listener != null) listener.onFailure(e.getMessage());
+            }
+        });
+    }
+
+    private void scheduleReplay(long delayMs) {
+        mainHandler.removeCallbacks(replayRunnable);
+        mainHandler.postDelayed(replayRunnable, delayMs);
+    }
+
+    /**
+     * Kirim ulang semua edit di outbox yang tidak sedang dikirim, dalam urutan edit.
+     */
+    private void replayOutbox() {
+        mainHandler.removeCallbacks(replayRunnable);
+        if (outbox == null) return;
+
+        for (RegionEditOutbox.Edit edit : outbox.getReplayable()) {
+            Log.d(TAG, "🔁 Replaying edit: " + edit.regionId);
+            submitEdit(edit.regionId, edit.editId, edit.status, edit.info, edit, edit.seq, null);
+        }
+    }
+
+    public RegionStore getRegionStore() {
+        return regionsHub.getStore();
+    }
+
+    /**
+     * Listener lama berbasis list penuh. List dibangun dari {@link RegionStore}
+     * sehingga dokumen tidak di-parse ulang setiap snapshot.
+     */
+    public void addRegionsListener(OnRegionsLoadedListener listener) {
+        if (listener == null || legacyListeners.containsKey(listener)) return;
+
+        OnRegionChangesListener adapter = new OnRegionChangesListener() {
+            @Override
+            public void onRegionsChanged(RegionChangeSet changes, RegionStore store) {
+                listener.onRegionsLoaded(store.getAll());
+            }
+
+            @Override
+            public void onError(String error) {
+                listener.onError(error);
+            }
+        };
+        legacyListeners.put(listener, adapter);
+        regionsHub.subscribe(adapter);
+    }
+
+    public void removeRegionsListener(OnRegionsLoadedListener listener) {
+        OnRegionChangesListener adapter = legacyListeners.remove(listener);
+        if (adapter != null) {
+            regionsHub.unsubscribe(adapter);
+        }
+    }
+
+    /**
+     * Listener real-time berbasis delta. Semua subscriber berbagi satu snapshot
+     * listener Firestore (lihat {@link RegionSubscriptionHub}); hanya dokumen yang
+     * berubah yang di-parse via {@link QuerySnapshot#getDocumentChanges()}.
+     */
+    public void addRegionChangesListener(OnRegionChangesListener listener) {
+        regionsHub.subscribe(listener);
+    }
+
+    public void removeRegionChangesListener(OnRegionChangesListener listener) {
+        regionsHub.unsubscribe(listener);
+    }
+
+    /**
+     * Listener delta untuk region bermasalah saja ({@code whereIn status}).
+     * Region yang kembali normal datang sebagai "removed".
+     */
+    public void addIssueChangesListener(OnRegionChangesListener listener) {
+        issuesHub.subscribe(listener);
+    }
+
+    public void removeIssueChangesListener(OnRegionChangesListener listener) {
+        issuesHub.unsubscribe(listener);
+    }
+
+    public RegionStore getIssueStore() {
+        return issuesHub.getStore();
+    }
 
-        Log.d(TAG, "📝 Updating region: " + regionId + " | status: " + status);
+    /**
+     * Region sesudah posisi cursor (lastUpdate, id dokumen), urut naik, langsung
+     * dari server tanpa listener (untuk {@code RegionSyncWorker}). Urutan kedua
+     * pada id dokumen membuat region dengan timestamp sama (satu batch edit)
+     * bisa dilanjutkan persis di tempat terakhir berhenti.
+     *
+     * @param afterDocumentId id dokumen terakhir yang sudah dibaca pada
+     *                        {@code cursor}, atau null untuk ikut membaca
+     *                        semua region dengan timestamp tersebut
+     */
+    public Task<QuerySnapshot> fetchRegionsUpdatedAfter(Timestamp cursor, String afterDocumentId,
+                                                        int limit) {
+        Query query = db.collection(COLLECTION_REGIONS)
+                .whereGreaterThanOrEqualTo(RegionMapper.FIELD_LAST_UPDATE, cursor)
+                .orderBy(RegionMapper.FIELD_LAST_UPDATE)
+                .orderBy(FieldPath.documentId())
+                .limit(limit);
+        if (afterDocumentId != null) {
+            query = query.startAfter(cursor, afterDocumentId);
+        }
+        return query.get(Source.SERVER);
+    }
 
-        db.collection(COLLECTION_REGIONS)
+    /**
+     * Riwayat status satu region dalam rentang [fromMillis, toMillis), dibaca
+     * dari subcollection history (hanya dokumen dalam rentang + satu entri
+     * sebelumnya untuk status awal). Timeline dibangun di decodeExecutor,
+     * listener dipanggil di main thread.
+     */
+    public void getRegionHistory(String regionId, long fromMillis, long toMillis,
+                                 OnHistoryLoadedListener listener) {
+        CollectionReference history = db.collection(COLLECTION_REGIONS)
                 .document(regionId)
-                .update(updates)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "✅ Region updated: " + regionId);
-                    if (listener != null) listener.onSuccess();
+                .collection(RegionMapper.COLLECTION_HISTORY);
+        Timestamp from = new Timestamp(new Date(fromMillis));
+
+        Task<QuerySnapshot> inRange = history
+                .whereGreaterThanOrEqualTo(RegionMapper.FIELD_HISTORY_AT, from)
+                .whereLessThan(RegionMapper.FIELD_HISTORY_AT, new Timestamp(new Date(toMillis)))
+                .orderBy(RegionMapper.FIELD_HISTORY_AT)
+                .get();
+        Task<QuerySnapshot> before = history
+                .whereLessThan(RegionMapper.FIELD_HISTORY_AT, from)
+                .orderBy(RegionMapper.FIELD_HISTORY_AT, Query.Direction.DESCENDING)
+                .limit(1)
+                .get();
+
+        Tasks.<QuerySnapshot>whenAllSuccess(Arrays.asList(inRange, before))
+                .addOnSuccessListener(decodeExecutor, results -> {
+                    List<RegionHistoryEntry> entries = new ArrayList<>();
+                    for (DocumentSnapshot doc : results.get(0).getDocuments()) {
+                        RegionHistoryEntry entry = RegionMapper.historyFromDocument(doc);
+                        if (entry != null) entries.add(entry);
+                    }
+
+                    RegionStatus initialStatus = null;
+                    for (DocumentSnapshot doc : results.get(1).getDocuments()) {
+                        RegionHistoryEntry entry = RegionMapper.historyFromDocument(doc);
+                        if (entry != null) initialStatus = entry.getStatus();
+                    }
+
+                    RegionTimeline timeline = RegionTimeline.build(initialStatus, entries,
+                            fromMillis, toMillis);
+                    Log.d(TAG, "📜 History " + regionId + ": " + entries.size() + " entries, "
+                            + timeline.getOutages().size() + " outages");
+                    mainHandler.post(() -> listener.onHistoryLoaded(timeline));
                 })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "❌ Error updating region: " + regionId, e);
-                    if (listener != null) listener.onFailure(e.getMessage());
+                    Log.e(TAG, "❌ Error loading history: " + regionId, e);
+                    listener.onError(e.getMessage());
                 });
     }
 
-    public void getRegions(OnRegionsLoadedListener listener) {
-        Log.d(TAG, "📊 Fetching regions from: " + COLLECTION_REGIONS);
+    /**
+     * Metrik gangguan per kelurahan (uptime, MTTR, frekuensi). Transisi live
+     * masuk lewat store utama dan store issues; panggil {@link #loadOutageHistory} supaya jendela
+     * 24 jam/7 hari/30 hari juga mencakup waktu sebelum aplikasi dibuka.
+     */
+    public OutageMetricsEngine getOutageMetrics() {
+        return outageMetrics;
+    }
 
-        db.collection(COLLECTION_REGIONS)
+    /**
+     * Muat riwayat 30 hari semua region dengan satu collection group query
+     * (biaya = jumlah entri riwayat, bukan jumlah region), lalu putar ulang ke
+     * {@link OutageMetricsEngine}. Hasil dipakai ulang selama
+     * {@link #OUTAGE_HISTORY_TTL_MS}, kecuali engine basi karena feed live
+     * sempat terputus. Panggilan selama query berjalan menunggu hasil yang
+     * sama. Harus dipanggil di main thread; listener juga di main thread.
+     */
+    public void loadOutageHistory(OnCompleteListener listener) {
+        long loadedAt = outageHistoryLoadedAt;
+        if (loadedAt != 0 && !outageMetrics.isStale()
+                && SystemClock.elapsedRealtime() - loadedAt < OUTAGE_HISTORY_TTL_MS) {
+            listener.onSuccess();
+            return;
+        }
+        if (outageHistoryWaiters != null) {
+            outageHistoryWaiters.add(listener);
+            return;
+        }
+        outageHistoryWaiters = new ArrayList<>();
+        outageHistoryWaiters.add(listener);
+        outageMetrics.clearStale();
+
+        long to = System.currentTimeMillis();
+        long from = to - TimeUnit.HOURS.toMillis(OutageMetricsEngine.WINDOW_30D);
+        db.collectionGroup(RegionMapper.COLLECTION_HISTORY)
+                .whereGreaterThanOrEqualTo(RegionMapper.FIELD_HISTORY_AT, new Timestamp(new Date(from)))
+                .orderBy(RegionMapper.FIELD_HISTORY_AT)
                 .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Region> regions = new ArrayList<>();
-                    for (DocumentSnapshot doc : queryDocumentSnapshots) {
-                        try {
-                            Region region = doc.toObject(Region.class);
-                            if (region != null) {
-                                region.setId(doc.getId());
-                                regions.add(region);
-                            }
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error parsing region: " + doc.getId(), e);
-                        }
+                .addOnSuccessListener(decodeExecutor, snapshot -> {
+                    List<String> regionIds = new ArrayList<>();
+                    List<RegionHistoryEntry> entries = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        RegionHistoryEntry entry = RegionMapper.historyFromDocument(doc);
+                        if (entry == null) continue;
+                        // region/{regionId}/history/{entryId}
+                        regionIds.add(doc.getReference().getParent().getParent().getId());
+                        entries.add(entry);
                     }
-                    Log.d(TAG, "✅ Loaded " + regions.size() + " regions");
-                    if (listener != null) listener.onRegionsLoaded(regions);
+
+                    List<Region> current = new ArrayList<>(regionsHub.getStore().getAll());
+                    current.addAll(issuesHub.getStore().getAll());
+                    outageMetrics.replay(from, to, regionIds, entries, current);
+                    outageHistoryLoadedAt = SystemClock.elapsedRealtime();
+                    Log.d(TAG, "📈 Outage history replayed: " + entries.size() + " entries");
+                    mainHandler.post(() -> {
+                        List<OnCompleteListener> waiters = outageHistoryWaiters;
+                        outageHistoryWaiters = null;
+                        for (OnCompleteListener waiter : waiters) {
+                            waiter.onSuccess();
+                        }
+                    });
                 })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "❌ Error getting regions", e);
-                    if (listener != null) listener.onError(e.getMessage());
+                    // Metrik tetap tersedia dari transisi live sejak aplikasi dibuka
+                    Log.e(TAG, "❌ Error loading outage history", e);
+                    outageMetrics.markStale();
+                    List<OnCompleteListener> waiters = outageHistoryWaiters;
+                    outageHistoryWaiters = null;
+                    for (OnCompleteListener waiter : waiters) {
+                        waiter.onFailure(e.getMessage());
+                    }
                 });
     }
 
-    public void addRegionsListener(OnRegionsLoadedListener listener) {
-        removeRegionsListener();
-
-        Log.d(TAG, "🔔 Adding real-time listener to: " + COLLECTION_REGIONS);
+    /**
+     * Statistik seluruh region: dari RegionRollup selama listener semua region
+     * hidup, selain itu dari aggregate query count(), dengan fallback
+     * {@link RegionStatistics#calculate} saat offline.
+     */
+    public RegionStatisticsSource getStatisticsSource() {
+        return statisticsSource;
+    }
 
-        regionsListener = db.collection(COLLECTION_REGIONS)
-                .addSnapshotListener((value, error) -> {
-                    if (error != null) {
-                        Log.e(TAG, "Listen failed", error);
-                        if (listener != null) listener.onError(error.getMessage());
-                        return;
-                    }
+    /**
+     * Statistik mode "hanya gangguan": gangguan/dikerjakan dari store issues
+     * (live), total dan jumlah status tak dikenal dari hasil agregat server.
+     */
+    public RegionStatistics getIssueStatistics(RegionStatistics aggregated) {
+        RegionStatistics issues = issuesHub.getStore().getRollup().getCityStatistics();
+        int total = aggregated != null ? aggregated.getTotalRegions() : 0;
+        int unknown = aggregated != null
+                ? total - aggregated.getNormalCount() - aggregated.getGangguanCount()
+                        - aggregated.getDikerjakanCount()
+                : 0;
+
+        int[] counts = new int[RegionStatus.count()];
+        counts[RegionStatus.GANGGUAN.ordinal()] = issues.getGangguanCount();
+        counts[RegionStatus.DIKERJAKAN.ordinal()] = issues.getDikerjakanCount();
+        counts[RegionStatus.UNKNOWN.ordinal()] = unknown;
+        int issueCount = issues.getGangguanCount() + issues.getDikerjakanCount();
+        counts[RegionStatus.NORMAL.ordinal()] = Math.max(0, total - issueCount - unknown);
+        return RegionStatistics.fromCounts(counts);
+    }
 
-                    if (value != null) {
-                        List<Region> regions = new ArrayList<>();
-                        for (DocumentSnapshot doc : value.getDocuments()) {
-                            try {
-                                Region region = doc.toObject(Region.class);
-                                if (region != null) {
-                                    region.setId(doc.getId());
-                                    regions.add(region);
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error parsing: " + doc.getId(), e);
-                            }
-                        }
-                        Log.d(TAG, "🔄 Real-time update: " + regions.size() + " regions");
-                        if (listener != null) listener.onRegionsLoaded(regions);
-                    }
-                });
+    /**
+     * Pasang listener snapshot region lebih awal (mis. saat login) supaya data
+     * sudah mengalir sebelum fragment pertama subscribe. Subscriber sementara
+     * dilepas setelah {@code holdMs}; upstream tetap hidup selama masih ada
+     * subscriber lain. Harus di main thread.
+     */
+    public void prefetchRegions(long holdMs) {
+        OnRegionChangesListener warmUp = new OnRegionChangesListener() {
+            @Override
+            public void onRegionsChanged(RegionChangeSet changes, RegionStore store) {
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.w(TAG, "⚠️ Region prefetch failed: " + error);
+            }
+        };
+        Log.d(TAG, "🔥 Prefetching regions");
+        regionsHub.subscribe(warmUp);
+        mainHandler.postDelayed(() -> regionsHub.unsubscribe(warmUp), holdMs);
     }
 
-    public void removeRegionsListener() {
-        if (regionsListener != null) {
-            regionsListener.remove();
-            regionsListener = null;
-        }
+    /**
+     * Lepas semua subscriber sekaligus. Hanya untuk logout; layar biasa cukup
+     * melepas listener miliknya sendiri.
+     */
+    public void removeAllRegionsListeners() {
+        legacyListeners.clear();
+        regionsHub.unsubscribeAll();
+        issuesHub.unsubscribeAll();
     }
 
     public void getUserRole(String uid, OnRoleLoadedListener listener) {
@@ -162,7 +586,7 @@ public class FirebaseManager {
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "❌ Error getting role", e);
-                    if (listener != null) listener.onRoleLoaded("user");
+                    if (listener != null) listener.onRoleLoadFailed(e.getMessage());
                 });
     }
 
@@ -188,7 +612,10 @@ public class FirebaseManager {
     }
 
     public void logout() {
-        removeRegionsListener();
+        removeAllRegionsListeners();
+        mainHandler.removeCallbacks(replayRunnable);
+        if (outbox != null) outbox.clear();
+        outageHistoryLoadedAt = 0;
         auth.signOut();
         Log.d(TAG, "👋 User logged out");
     }
@@ -196,6 +623,10 @@ public class FirebaseManager {
     public interface OnCompleteListener {
         void onSuccess();
         void onFailure(String error);
+
+        /** Edit belum sampai ke server (offline); dikirim otomatis oleh Firestore atau outbox. */
+        default void onQueued() {
+        }
     }
 
     public interface OnRegionsLoadedListener {
@@ -203,8 +634,25 @@ public class FirebaseManager {
         void onError(String error);
     }
 
+    public interface OnRegionChangesListener {
+        void onRegionsChanged(RegionChangeSet changes, RegionStore store);
+        void onError(String error);
+    }
+
+    public interface OnHistoryLoadedListener {
+        void onHistoryLoaded(RegionTimeline timeline);
+        void onError(String error);
+    }
+
     public interface OnRoleLoadedListener {
         void onRoleLoaded(String role);
+
+        /**
+         * Role tidak bisa dibaca (mis. offline tanpa cache). Bawaan: anggap "user".
+         */
+        default void onRoleLoadFailed(String error) {
+            onRoleLoaded("user");
+        }
     }
 
     public interface OnUserDataLoadedListener {
@@ -0,0 +1,120 @@
+package com.example.projectmagang.managers;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.projectmagang.workers.RegionSyncWorker;
+
+/**
+ * Mengatur urutan kerja saat login supaya peta cepat siap dipakai.
+ *
+ * <p>Pekerjaan yang tidak bergantung satu sama lain dijalankan paralel:
+ * cache region lokal, hierarki, outbox dan WebView peta mulai dimuat sejak
+ * layar login muncul; snapshot region dan role user diambil bersamaan segera
+ * setelah auth berhasil. Navigasi dilakukan begitu role diketahui, tanpa jeda
+ * buatan.</p>
+ *
+ * <p>Untuk sesi yang dipulihkan, role tersimpan langsung dipakai lalu
+ * diperbarui di background; perubahan role diteruskan lewat
+ * {@link RoleManager.OnRoleChangedListener}.</p>
+ */
+public class LoginOrchestrator {
+    private static final String TAG = "LoginOrchestrator";
+    // Cukup lama sampai MapsFragment/DescriptionFragment subscribe sendiri
+    private static final long REGION_PREFETCH_HOLD_MS = 10_000;
+
+    /**
+     * Dipanggil di main thread saat semua yang dibutuhkan layar utama siap.
+     */
+    public interface OnReadyListener {
+        void onReady(boolean isAdmin);
+    }
+
+    private final Context appContext;
+    private final FirebaseManager firebaseManager;
+    private final RoleManager roleManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean regionsPrefetched = false;
+
+    public LoginOrchestrator(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.firebaseManager = FirebaseManager.getInstance();
+        this.roleManager = RoleManager.getInstance(appContext);
+    }
+
+    /**
+     * Mulai pekerjaan yang tidak butuh auth: cache region dari disk, hierarki,
+     * outbox, dan WebView peta (saat main thread idle). Harus di main thread.
+     */
+    public void warmUp() {
+        firebaseManager.enableLocalCache(appContext);
+        Looper.myQueue().addIdleHandler(() -> {
+            MapWebViewPool.getInstance().prewarm(appContext);
+            return false;
+        });
+    }
+
+    /**
+     * Sesi Firebase Auth yang masih aktif: pakai role tersimpan bila ada
+     * (dibaca di background), sambil memperbarui role dari Firestore.
+     */
+    public void resumeSession(String uid, OnReadyListener listener) {
+        prefetchRegions();
+        RegionSyncWorker.schedule(appContext);
+
+        new Thread(() -> {
+            boolean hasStoredRole = roleManager.hasStoredRole();
+            // Mengisi cache memori RoleManager di luar main thread
+            boolean isAdmin = roleManager.isAdmin();
+            mainHandler.post(() -> {
+                if (hasStoredRole) {
+                    Log.d(TAG, "⚡ Using stored role, refreshing in background");
+                    listener.onReady(isAdmin);
+                    fetchRole(uid, null);
+                } else {
+                    fetchRole(uid, listener);
+                }
+            });
+        }, "login-role").start();
+    }
+
+    /**
+     * Auth baru saja berhasil: snapshot region dan role diambil bersamaan.
+     */
+    public void onSignedIn(String uid, OnReadyListener listener) {
+        prefetchRegions();
+        // Sync background + notifikasi gangguan selama aplikasi tidak dibuka
+        RegionSyncWorker.schedule(appContext);
+        fetchRole(uid, listener);
+    }
+
+    private void prefetchRegions() {
+        if (regionsPrefetched) return;
+        regionsPrefetched = true;
+        // Rules Firestore butuh user yang sudah login, jadi baru bisa setelah auth
+        firebaseManager.prefetchRegions(REGION_PREFETCH_HOLD_MS);
+    }
+
+    private void fetchRole(String uid, OnReadyListener listener) {
+        firebaseManager.getUserRole(uid, new FirebaseManager.OnRoleLoadedListener() {
+            @Override
+            public void onRoleLoaded(String role) {
+                roleManager.setRole(role);
+                if (listener != null) {
+                    listener.onReady(roleManager.isAdmin());
+                }
+            }
+
+            @Override
+            public void onRoleLoadFailed(String error) {
+                // Gagal baca bukan berarti role berubah: role tersimpan tidak ditimpa
+                Log.w(TAG, "⚠️ Role refresh failed, keeping current role: " + error);
+                if (listener != null) {
+                    listener.onReady(roleManager.isAdmin());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.projectmagang.managers;
+
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.util.Log;
+import android.view.ViewGroup;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebSettings;
+import android.webkit.WebView;
+import android.webkit.WebViewClient;
+
+import androidx.webkit.WebViewAssetLoader;
+
+import com.example.projectmagang.BuildConfig;
+import com.example.projectmagang.interfaces.MapBridge;
+import com.example.projectmagang.interfaces.WebAppInterface;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Menyimpan satu WebView peta yang sudah dimuat (map.html + Leaflet + polygon)
+ * di level aplikasi. WebView dibuat lebih awal (saat login) lalu dipinjam oleh
+ * MapsFragment, sehingga pindah tab tidak memuat ulang peta.
+ *
+ * <p>WebView dibuat dengan {@link MutableContextWrapper}: saat dipinjam, base
+ * context diganti ke Activity; saat dikembalikan, kembali ke application
+ * context supaya Activity tidak bocor.</p>
+ */
+public class MapWebViewPool {
+    private static final String TAG = "MapWebViewPool";
+    // Aset disajikan lewat origin https supaya map.html bisa fetch() aset .pgeo
+    private static final String MAP_URL =
+            "https://" + WebViewAssetLoader.DEFAULT_DOMAIN + "/assets/map.html";
+
+    private static MapWebViewPool instance;
+
+    private WebView webView;
+    private MutableContextWrapper contextWrapper;
+    private Context appContext;
+    private TileCache tileCache;
+    private MapBridge bridge;
+    private boolean mapReady = false;
+    private boolean pageLoaded = false;
+    // Role baru (login/logout) langsung diteruskan ke peta, termasuk saat tab tersembunyi
+    private final RoleManager.OnRoleChangedListener roleListener = (role, isAdmin) -> pushRole(role);
+    private WebAppInterface.OnMapReadyListener onMapReadyListener;
+    // Peminjam diberi tahu supaya tidak memakai WebView yang sudah di-destroy
+    private Runnable onDestroyedListener;
+
+    private MapWebViewPool() {
+    }
+
+    public static synchronized MapWebViewPool getInstance() {
+        if (instance == null) {
+            instance = new MapWebViewPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Buat dan mulai muat WebView peta jika belum ada. Harus di main thread.
+     */
+    public void prewarm(Context context) {
+        if (webView != null) return;
+
+        appContext = context.getApplicationContext();
+        if (tileCache == null) {
+            tileCache = new TileCache(appContext);
+        }
+        contextWrapper = new MutableContextWrapper(appContext);
+        webView = new WebView(contextWrapper);
+        mapReady = false;
+        pageLoaded = false;
+        setupWebView();
+        RoleManager.getInstance(appContext).addOnRoleChangedListener(roleListener);
+
+        Log.d(TAG, "🔥 Pre-warming map WebView");
+        webView.loadUrl(MAP_URL);
+    }
+
+    /**
+     * Pinjam WebView peta untuk ditampilkan di Activity.
+     */
+    public WebView acquire(Context activityContext) {
+        prewarm(activityContext);
+
+        contextWrapper.setBaseContext(activityContext);
+        detachFromParent();
+        webView.onResume();
+
+        Log.d(TAG, "📤 WebView acquired | mapReady: " + mapReady);
+        return webView;
+    }
+
+    /**
+     * Kembalikan WebView ke pool. State peta tetap dipertahankan.
+     */
+    public void release(WebView view) {
+        if (view == null || view != webView) return;
+
+        onMapReadyListener = null;
+        onDestroyedListener = null;
+        detachFromParent();
+        webView.onPause();
+        contextWrapper.setBaseContext(appContext);
+
+        Log.d(TAG, "📥 WebView released");
+    }
+
+    public boolean isMapReady() {
+        return mapReady;
+    }
+
+    public void setOnMapReadyListener(WebAppInterface.OnMapReadyListener listener) {
+        this.onMapReadyListener = listener;
+    }
+
+    /**
+     * Dipanggil saat WebView yang sedang dipinjam di-destroy lewat {@link #destroy()}.
+     */
+    public void setOnDestroyedListener(Runnable listener) {
+        this.onDestroyedListener = listener;
+    }
+
+    /**
+     * Hancurkan WebView (mis. saat logout, karena role dan data berganti).
+     */
+    public void destroy() {
+        if (webView == null) return;
+
+        Runnable destroyedListener = onDestroyedListener;
+        onDestroyedListener = null;
+        if (destroyedListener != null) destroyedListener.run();
+
+        RoleManager.getInstance(appContext).removeOnRoleChangedListener(roleListener);
+        detachFromParent();
+        bridge.close();
+        bridge = null;
+        webView.destroy();
+        webView = null;
+        contextWrapper = null;
+        mapReady = false;
+        pageLoaded = false;
+        onMapReadyListener = null;
+        Log.d(TAG, "🗑️ WebView destroyed");
+    }
+
+    private void pushRole(String role) {
+        if (webView == null || !pageLoaded) return;
+        webView.evaluateJavascript("javascript:setUserRole('" + role + "')", value -> {
+            Log.d(TAG, "✅ Role set in WebView: " + role);
+        });
+    }
+
+    private void detachFromParent() {
+        if (webView.getParent() instanceof ViewGroup) {
+            ((ViewGroup) webView.getParent()).removeView(webView);
+        }
+    }
+
+    private static boolean isTileRequest(Uri url) {
+        List<String> segments = url.getPathSegments();
+        return WebViewAssetLoader.DEFAULT_DOMAIN.equals(url.getHost())
+                && segments.size() == 4 && "tiles".equals(segments.get(0));
+    }
+
+    /**
+     * Layani /tiles/{z}/{x}/{y}.png dari {@link TileCache}. Dipanggil di thread
+     * IO WebView, jadi boleh blocking.
+     */
+    private WebResourceResponse loadTile(Uri url) {
+        List<String> segments = url.getPathSegments();
+        byte[] tile = null;
+        try {
+            int z = Integer.parseInt(segments.get(1));
+            int x = Integer.parseInt(segments.get(2));
+            int y = Integer.parseInt(segments.get(3).replace(".png", ""));
+            tile = tileCache.getTile(z, x, y);
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "⚠️ Bad tile url: " + url);
+        }
+
+        if (tile == null) {
+            // Offline dan belum ter-cache: tile kosong, bukan error jaringan
+            return new WebResourceResponse("image/png", null, 404, "Not Found",
+                    Collections.emptyMap(), new ByteArrayInputStream(new byte[0]));
+        }
+        return new WebResourceResponse("image/png", null, new ByteArrayInputStream(tile));
+    }
+
+    private void setupWebView() {
+        WebSettings webSettings = webView.getSettings();
+        webSettings.setJavaScriptEnabled(true);
+        webSettings.setDomStorageEnabled(true);
+        webSettings.setAllowFileAccess(true);
+        webSettings.setAllowContentAccess(true);
+        webSettings.setBuiltInZoomControls(true);
+        webSettings.setDisplayZoomControls(false);
+
+        // Inspeksi lewat chrome://inspect hanya untuk build debug
+        WebView.setWebContentsDebuggingEnabled(BuildConfig.DEBUG);
+
+        WebAppInterface webAppInterface = new WebAppInterface(appContext);
+        webAppInterface.setOnMapReadyListener(() -> {
+            mapReady = true;
+            Log.d(TAG, "🗺️ Map ready");
+            if (onMapReadyListener != null) onMapReadyListener.onMapReady();
+        });
+        bridge = MapBridge.attach(webView, webAppInterface);
+
+        WebViewAssetLoader assetLoader = new WebViewAssetLoader.Builder()
+                .addPathHandler("/assets/", new WebViewAssetLoader.AssetsPathHandler(appContext))
+                .build();
+
+        webView.setWebViewClient(new WebViewClient() {
+            @Override
+            public WebResourceResponse shouldInterceptRequest(WebView view,
+                                                              WebResourceRequest request) {
+                Uri url = request.getUrl();
+                if (isTileRequest(url)) {
+                    return loadTile(url);
+                }
+                return assetLoader.shouldInterceptRequest(url);
+            }
+
+            @Override
+            public void onPageStarted(WebView view, String url, Bitmap favicon) {
+                super.onPageStarted(view, url, favicon);
+                // Bridge fallback (WebView lama) hanya melayani halaman dari origin appassets
+                if (bridge != null) bridge.onPageStarted(url);
+            }
+
+            @Override
+            public void onPageFinished(WebView view, String url) {
+                super.onPageFinished(view, url);
+
+                pageLoaded = true;
+                // Role dari cache memori RoleManager, tanpa baca disk di main thread
+                String role = RoleManager.getInstance(appContext).getRole();
+                Log.d(TAG, "🗺️ Page loaded | Role: " + role);
+                pushRole(role);
+            }
+        });
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.projectmagang.managers;
+
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionHistoryEntry;
+import com.example.projectmagang.models.RegionStatus;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrik gangguan per kelurahan (uptime, MTTR, frekuensi) untuk jendela
+ * bergulir 24 jam / 7 hari / 30 hari.
+ *
+ * <p>Setiap kelurahan punya ring buffer {@link #BUCKET_COUNT} bucket per jam
+ * berisi durasi down, jumlah gangguan baru, jumlah pemulihan dan total waktu
+ * pemulihan. Transisi status dicatat saat terjadi (amortized O(1): tiap jam
+ * dikreditkan sekali), sedangkan query menjumlah bucket dalam jendela.</p>
+ *
+ * <p>Sumber data: riwayat 30 hari (lihat {@link #reset}) lalu transisi live
+ * dari {@link RegionStore#apply} milik semua store; region yang keluar dari
+ * query issues dicatat sebagai pulih saat perubahan diterima. Engine hanya
+ * ditandai {@link #isStale() basi} (riwayat perlu dimuat ulang) jika feed
+ * live benar-benar terputus dan ada region yang berubah selama celah itu.</p>
+ */
+public class OutageMetricsEngine {
+    public static final int WINDOW_24H = 24;
+    public static final int WINDOW_7D = 24 * 7;
+    public static final int WINDOW_30D = 24 * 30;
+
+    private static final long BUCKET_MS = TimeUnit.HOURS.toMillis(1);
+    private static final int BUCKET_COUNT = WINDOW_30D;
+
+    /**
+     * Hasil agregasi untuk satu kelurahan atau gabungan beberapa kelurahan.
+     */
+    public static final class Metrics {
+        private long observedMillis;
+        private long downMillis;
+        private int outageCount;
+        private int repairCount;
+        private long repairMillis;
+
+        /** Uptime dalam persen dari waktu yang teramati dalam jendela. */
+        public double getUptimePercent() {
+            if (observedMillis <= 0) return 100.0;
+            return Math.max(0.0, 100.0 * (observedMillis - downMillis) / observedMillis);
+        }
+
+        public double getDowntimeFraction() {
+            return observedMillis > 0 ? Math.min(1.0, (double) downMillis / observedMillis) : 0.0;
+        }
+
+        public long getDownMillis() {
+            return downMillis;
+        }
+
+        public int getOutageCount() {
+            return outageCount;
+        }
+
+        /**
+         * @return rata-rata waktu pemulihan, atau -1 jika belum ada pemulihan
+         */
+        public long getMttrMillis() {
+            return repairCount > 0 ? repairMillis / repairCount : -1;
+        }
+
+        void add(Metrics other) {
+            observedMillis += other.observedMillis;
+            downMillis += other.downMillis;
+            outageCount += other.outageCount;
+            repairCount += other.repairCount;
+            repairMillis += other.repairMillis;
+        }
+    }
+
+    private static final class WardState {
+        final long[] downMillis = new long[BUCKET_COUNT];
+        final int[] outages = new int[BUCKET_COUNT];
+        final int[] repairs = new int[BUCKET_COUNT];
+        final long[] repairMillis = new long[BUCKET_COUNT];
+        // Jam absolut (epoch / 1 jam) dari bucket terbaru
+        long headHour;
+        RegionStatus status;
+        long lastChange;
+        long outageStart = -1;
+    }
+
+    private final Map<String, WardState> wards = new HashMap<>();
+    private long observedSince = System.currentTimeMillis();
+    private volatile boolean stale = false;
+    // Awal celah feed live (semua listener region dilepas), -1 = tersambung
+    private volatile long feedGapSince = -1;
+
+    /**
+     * Kosongkan semua state sebelum riwayat diputar ulang.
+     *
+     * @param observedSince awal data riwayat; uptime dihitung dari sini
+     */
+    public synchronized void reset(long observedSince) {
+        wards.clear();
+        this.observedSince = observedSince;
+    }
+
+    /**
+     * Ada transisi yang mungkin terlewat; riwayat perlu diputar ulang.
+     */
+    void markStale() {
+        stale = true;
+    }
+
+    /**
+     * Dipanggil saat riwayat mulai dimuat; celah yang muncul selama query
+     * berjalan menandai basi lagi.
+     */
+    void clearStale() {
+        stale = false;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Semua listener region dilepas sejak {@code sinceMillis}. Belum basi:
+     * baru basi jika snapshot sesudah listener dipasang lagi membawa region
+     * yang berubah selama celah ini.
+     */
+    synchronized void markFeedGap(long sinceMillis) {
+        if (feedGapSince < 0) feedGapSince = sinceMillis;
+    }
+
+    /**
+     * Snapshot pertama dari listener yang dipasang lagi sudah diterapkan;
+     * perubahan selama celah sudah diperiksa.
+     */
+    synchronized void closeFeedGap() {
+        feedGapSince = -1;
+    }
+
+    /**
+     * Hook dari {@link RegionStore#apply}. Edit yang belum dikonfirmasi server
+     * diabaikan (bisa saja di-rollback); versi terkonfirmasi menyusul.
+     */
+    void onRegionChanged(String regionId, Region region) {
+        if (region == null || region.isPendingWrite()) return;
+        long time = timeOf(region);
+        long gapSince = feedGapSince;
+        if (gapSince >= 0 && time >= gapSince) {
+            // Berubah selama celah: transisi di antaranya bisa saja terlewat
+            stale = true;
+        }
+        onStatusChanged(regionId, region.getStatusType(), time);
+    }
+
+    /**
+     * Hook dari {@link RegionStore#apply} untuk region yang keluar dari store.
+     * Di store issues artinya status tidak lagi gangguan/dikerjakan (di store
+     * utama: dokumen dihapus), jadi dicatat sebagai pulih pada
+     * {@code timeMillis}. Tidak berbuat apa-apa jika pemulihannya sudah
+     * tercatat (mis. lewat store utama); selama celah feed waktunya tidak
+     * diketahui.
+     */
+    synchronized void onRegionRemoved(String regionId, long timeMillis) {
+        WardState ward = wards.get(regionId);
+        if (ward == null || ward.status == null || !ward.status.isIssue()) return;
+        if (feedGapSince >= 0) {
+            stale = true;
+            return;
+        }
+        onStatusChanged(regionId, RegionStatus.NORMAL, timeMillis);
+    }
+
+    private static long timeOf(Region region) {
+        return region.getLastUpdate() != null
+                ? region.getLastUpdate().toDate().getTime()
+                : System.currentTimeMillis();
+    }
+
+    /**
+     * Catat status region pada waktu tertentu; tidak berbuat apa-apa jika
+     * status tidak berubah. Event harus datang kurang lebih urut waktu.
+     */
+    public synchronized void onStatusChanged(String regionId, RegionStatus status, long timeMillis) {
+        WardState ward = wards.get(regionId);
+        if (ward == null) {
+            ward = new WardState();
+            ward.headHour = hourOf(timeMillis);
+            wards.put(regionId, ward);
+        } else if (ward.status == status) {
+            return;
+        }
+
+        long time = Math.max(timeMillis, ward.lastChange);
+        advance(ward, hourOf(time));
+
+        boolean wasIssue = ward.status != null && ward.status.isIssue();
+        if (wasIssue) {
+            creditDown(ward, ward.lastChange, time);
+        }
+
+        if (!wasIssue && status.isIssue()) {
+            ward.outageStart = time;
+            if (inRing(ward, hourOf(time))) ward.outages[bucketOf(hourOf(time))]++;
+        } else if (wasIssue && !status.isIssue()) {
+            if (status == RegionStatus.NORMAL && inRing(ward, hourOf(time))) {
+                int bucket = bucketOf(hourOf(time));
+                ward.repairs[bucket]++;
+                ward.repairMillis[bucket] += time - ward.outageStart;
+            }
+            ward.outageStart = -1;
+        }
+
+        ward.status = status;
+        ward.lastChange = time;
+    }
+
+    public synchronized Metrics getWardMetrics(String regionId, int windowHours, long nowMillis) {
+        Metrics metrics = new Metrics();
+        WardState ward = wards.get(regionId);
+        long windowStart = nowMillis - windowHours * BUCKET_MS;
+        metrics.observedMillis = Math.max(0, nowMillis - Math.max(windowStart, observedSince));
+        if (ward == null) return metrics;
+
+        long nowHour = hourOf(nowMillis);
+        advance(ward, nowHour);
+        int hours = Math.min(windowHours, BUCKET_COUNT);
+        for (long hour = nowHour - hours + 1; hour <= nowHour; hour++) {
+            int bucket = bucketOf(hour);
+            metrics.downMillis += ward.downMillis[bucket];
+            metrics.outageCount += ward.outages[bucket];
+            metrics.repairCount += ward.repairs[bucket];
+            metrics.repairMillis += ward.repairMillis[bucket];
+        }
+
+        // Gangguan yang masih berlangsung belum dikreditkan ke bucket
+        if (ward.status != null && ward.status.isIssue()) {
+            metrics.downMillis += Math.max(0, nowMillis - Math.max(ward.lastChange, windowStart));
+        }
+        metrics.downMillis = Math.min(metrics.downMillis, metrics.observedMillis);
+        return metrics;
+    }
+
+    /**
+     * Gabungan beberapa kelurahan (mis. satu kecamatan). Uptime = rata-rata
+     * tertimbang waktu teramati.
+     */
+    public synchronized Metrics getCombinedMetrics(Collection<String> regionIds, int windowHours,
+                                                   long nowMillis) {
+        Metrics combined = new Metrics();
+        for (String regionId : regionIds) {
+            combined.add(getWardMetrics(regionId, windowHours, nowMillis));
+        }
+        return combined;
+    }
+
+    public synchronized Map<String, Metrics> getAllWardMetrics(int windowHours, long nowMillis) {
+        Map<String, Metrics> result = new HashMap<>();
+        for (String regionId : wards.keySet()) {
+            result.put(regionId, getWardMetrics(regionId, windowHours, nowMillis));
+        }
+        return result;
+    }
+
+    /**
+     * Putar ulang riwayat (urut waktu) lalu samakan dengan status terkini.
+     *
+     * @param coveredUntil waktu query riwayat; celah feed yang masih terbuka
+     *                     dianggap mulai dari sini
+     */
+    synchronized void replay(long observedSince, long coveredUntil, List<String> regionIds,
+                             List<RegionHistoryEntry> entries, Collection<Region> current) {
+        reset(observedSince);
+        if (feedGapSince >= 0) feedGapSince = Math.max(feedGapSince, coveredUntil);
+        for (int i = 0; i < entries.size(); i++) {
+            RegionHistoryEntry entry = entries.get(i);
+            onStatusChanged(regionIds.get(i), entry.getStatus(), entry.getTimeMillis());
+        }
+        for (Region region : current) {
+            if (region.isPendingWrite()) continue;
+            // Store yang sempat terputus bisa lebih lama dari riwayat; riwayat menang
+            WardState ward = wards.get(region.getId());
+            if (ward != null && timeOf(region) < ward.lastChange) continue;
+            onRegionChanged(region.getId(), region);
+        }
+    }
+
+    /**
+     * Geser ring ke jam {@code hour}, mengosongkan bucket yang terlewati.
+     */
+    private static void advance(WardState ward, long hour) {
+        if (hour <= ward.headHour) return;
+        long steps = Math.min(hour - ward.headHour, BUCKET_COUNT);
+        for (long h = hour - steps + 1; h <= hour; h++) {
+            int bucket = bucketOf(h);
+            ward.downMillis[bucket] = 0;
+            ward.outages[bucket] = 0;
+            ward.repairs[bucket] = 0;
+            ward.repairMillis[bucket] = 0;
+        }
+        ward.headHour = hour;
+    }
+
+    /**
+     * Tambahkan durasi down [from, to) ke bucket jam yang dilewati (hanya yang
+     * masih di dalam ring).
+     */
+    private static void creditDown(WardState ward, long from, long to) {
+        long oldestStart = (ward.headHour - BUCKET_COUNT + 1) * BUCKET_MS;
+        long start = Math.max(from, oldestStart);
+        while (start < to) {
+            long hour = hourOf(start);
+            long end = Math.min(to, (hour + 1) * BUCKET_MS);
+            ward.downMillis[bucketOf(hour)] += end - start;
+            start = end;
+        }
+    }
+
+    private static boolean inRing(WardState ward, long hour) {
+        return hour > ward.headHour - BUCKET_COUNT && hour <= ward.headHour;
+    }
+
+    private static long hourOf(long timeMillis) {
+        return Math.floorDiv(timeMillis, BUCKET_MS);
+    }
+
+    private static int bucketOf(long hour) {
+        return (int) Math.floorMod(hour, (long) BUCKET_COUNT);
+    }
+}
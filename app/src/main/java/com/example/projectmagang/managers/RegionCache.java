@@ -0,0 +1,141 @@
+package com.example.projectmagang.managers;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.example.projectmagang.models.Region;
+import com.google.firebase.Timestamp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cache lokal region terakhir yang diketahui, disimpan sebagai file biner
+ * berversi. Dipakai untuk menampilkan peta dan daftar region sebelum Firestore
+ * menjawab, termasuk saat offline.
+ *
+ * <p>Format: magic, versi, jumlah region, lalu per region: id, name, status,
+ * info (UTF, boleh null) dan lastUpdate (detik + nanodetik, boleh null).</p>
+ */
+public class RegionCache {
+    private static final String TAG = "RegionCache";
+    private static final String FILE_NAME = "region_cache.bin";
+    private static final int MAGIC = 0x52474331; // "RGC1"
+    private static final int VERSION = 1;
+    // FirebaseManager dan RegionSyncWorker bisa menulis file yang sama bersamaan
+    private static final Object FILE_LOCK = new Object();
+
+    private final AtomicFile file;
+
+    public RegionCache(Context context) {
+        file = new AtomicFile(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+    }
+
+    /**
+     * Baca cache dari disk. Jangan dipanggil dari main thread.
+     *
+     * @return region tersimpan, atau list kosong jika cache tidak ada / versinya berbeda
+     */
+    public List<Region> load() {
+        synchronized (FILE_LOCK) {
+            return loadLocked();
+        }
+    }
+
+    private List<Region> loadLocked() {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                Log.w(TAG, "⚠️ Cache format/version mismatch, ignoring");
+                return Collections.emptyList();
+            }
+
+            int count = in.readInt();
+            List<Region> regions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                String name = readNullableString(in);
+                String status = readNullableString(in);
+                String info = readNullableString(in);
+                Timestamp lastUpdate = null;
+                if (in.readBoolean()) {
+                    lastUpdate = new Timestamp(in.readLong(), in.readInt());
+                }
+                regions.add(new Region(id, name, status, info, lastUpdate));
+            }
+
+            Log.d(TAG, "📦 Loaded " + regions.size() + " regions from cache");
+            return regions;
+        } catch (FileNotFoundException e) {
+            Log.d(TAG, "No region cache yet");
+            return Collections.emptyList();
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "❌ Error reading region cache", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Tulis cache secara atomik. Jangan dipanggil dari main thread.
+     */
+    public void save(List<Region> regions) {
+        synchronized (FILE_LOCK) {
+            saveLocked(regions);
+        }
+    }
+
+    private void saveLocked(List<Region> regions) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(regions.size());
+            for (Region region : regions) {
+                out.writeUTF(region.getId());
+                writeNullableString(out, region.getName());
+                writeNullableString(out, region.getStatus());
+                writeNullableString(out, region.getInfo());
+                Timestamp lastUpdate = region.getLastUpdate();
+                out.writeBoolean(lastUpdate != null);
+                if (lastUpdate != null) {
+                    out.writeLong(lastUpdate.getSeconds());
+                    out.writeInt(lastUpdate.getNanoseconds());
+                }
+            }
+            out.flush();
+            file.finishWrite(stream);
+
+            Log.d(TAG, "💾 Saved " + regions.size() + " regions to cache");
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Error writing region cache", e);
+            if (stream != null) file.failWrite(stream);
+        }
+    }
+
+    public void clear() {
+        synchronized (FILE_LOCK) {
+            file.delete();
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+}
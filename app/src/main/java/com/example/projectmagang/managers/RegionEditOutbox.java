@@ -0,0 +1,251 @@
+package com.example.projectmagang.managers;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.util.AtomicFile;
+
+import com.example.projectmagang.models.RegionStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Outbox tersimpan untuk edit status region oleh admin. Setiap edit dicatat ke
+ * journal sebelum dikirim dan baru dihapus setelah server menerima, jadi edit
+ * yang dibuat di area tanpa sinyal (atau saat aplikasi dimatikan) tidak hilang.
+ *
+ * <p>Hanya edit terakhir per region yang disimpan; edit lama otomatis
+ * tergantikan. Urutan replay mengikuti urutan edit terakhir.</p>
+ *
+ * <p>Edit yang sudah diserahkan ke Firestore ({@link #markHandedOff}) ada di
+ * antrian mutasi lokal Firestore yang juga persisten. Edit seperti ini tidak
+ * diputar ulang setelah aplikasi dibuka kembali, karena Firestore sudah akan
+ * mengirimnya sendiri; outbox hanya menjaga edit yang belum sampai ke sana
+ * (mis. masih dalam jendela coalescing) atau yang gagal sementara.</p>
+ *
+ * <p>Format: magic, versi, jumlah edit, lalu per edit: seq, regionId, status
+ * key, info, createdAt (epoch millis), editId dan handedOff.</p>
+ */
+public class RegionEditOutbox {
+    private static final String TAG = "RegionEditOutbox";
+    private static final String FILE_NAME = "region_outbox.bin";
+    private static final int MAGIC = 0x52454f31; // "REO1"
+    private static final int VERSION = 1;
+
+    private static final long INITIAL_BACKOFF_MS = 2_000;
+    private static final long MAX_BACKOFF_MS = 5 * 60_000;
+
+    /**
+     * Satu edit yang belum dikonfirmasi server.
+     */
+    public static final class Edit {
+        final long seq;
+        // Id stabil untuk pengiriman ulang (dipakai sebagai id dokumen riwayat)
+        final String editId;
+        final String regionId;
+        final RegionStatus status;
+        final String info;
+        final long createdAt;
+        boolean inFlight;
+        // Sudah ada di antrian mutasi lokal Firestore
+        boolean handedOff;
+
+        Edit(long seq, String editId, String regionId, RegionStatus status, String info,
+             long createdAt) {
+            this.seq = seq;
+            this.editId = editId;
+            this.regionId = regionId;
+            this.status = status;
+            this.info = info;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final AtomicFile file;
+    private final Executor ioExecutor;
+    private final Map<String, Edit> edits = new LinkedHashMap<>();
+    private long nextSeq = 1;
+    private int failedAttempts = 0;
+
+    RegionEditOutbox(Context context, Executor ioExecutor) {
+        this(new File(context.getApplicationContext().getFilesDir(), FILE_NAME), ioExecutor);
+    }
+
+    RegionEditOutbox(File journal, Executor ioExecutor) {
+        this.file = new AtomicFile(journal);
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Baca journal dari disk. Jangan dipanggil dari main thread.
+     *
+     * @return edit yang tertunda dari sesi sebelumnya
+     */
+    synchronized List<Edit> load() {
+        int skipped = 0;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(file.openRead()))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                Log.w(TAG, "⚠️ Outbox format/version mismatch, ignoring");
+                return new ArrayList<>();
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long seq = in.readLong();
+                String regionId = in.readUTF();
+                RegionStatus status = RegionStatus.parse(in.readUTF());
+                String info = in.readUTF();
+                long createdAt = in.readLong();
+                String editId = in.readUTF();
+                boolean handedOff = in.readBoolean();
+                nextSeq = Math.max(nextSeq, seq + 1);
+                if (handedOff) {
+                    // Firestore mengirimnya sendiri dari antrian lokal; replay = write ganda
+                    skipped++;
+                    continue;
+                }
+                // Edit dari sesi ini (jika ada) lebih baru daripada isi journal
+                if (!edits.containsKey(regionId)) {
+                    edits.put(regionId, new Edit(seq, editId, regionId, status, info, createdAt));
+                }
+            }
+
+            Log.d(TAG, "📦 Loaded " + edits.size() + " pending edits from outbox | "
+                    + skipped + " already handed to Firestore");
+            if (skipped > 0) persist();
+        } catch (FileNotFoundException e) {
+            Log.d(TAG, "No outbox journal yet");
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "❌ Error reading outbox", e);
+        }
+        return new ArrayList<>(edits.values());
+    }
+
+    /**
+     * Catat edit baru. Edit sebelumnya untuk region yang sama digantikan.
+     */
+    synchronized Edit record(String regionId, RegionStatus status, String info) {
+        Edit edit = new Edit(nextSeq++, UUID.randomUUID().toString(), regionId, status,
+                info != null ? info : "", System.currentTimeMillis());
+        // Hapus dulu supaya region berpindah ke posisi paling akhir
+        edits.remove(regionId);
+        edits.put(regionId, edit);
+        persist();
+        return edit;
+    }
+
+    /**
+     * Hapus edit setelah selesai (diterima server atau ditolak permanen).
+     * Diabaikan jika edit sudah digantikan edit yang lebih baru.
+     */
+    synchronized void remove(Edit edit) {
+        Edit current = edits.get(edit.regionId);
+        if (current == null || current.seq != edit.seq) return;
+        edits.remove(edit.regionId);
+        persist();
+    }
+
+    synchronized void markInFlight(Edit edit) {
+        edit.inFlight = true;
+    }
+
+    /**
+     * Batch berisi edit ini sudah di-commit ke Firestore (antrian lokalnya).
+     */
+    synchronized void markHandedOff(Edit edit) {
+        if (edit.handedOff || edits.get(edit.regionId) != edit) return;
+        edit.handedOff = true;
+        persist();
+    }
+
+    /**
+     * Pengiriman gagal sementara (mis. offline); edit tetap di outbox.
+     *
+     * @return jeda sebelum replay berikutnya (exponential backoff)
+     */
+    synchronized long markRetry(Edit edit) {
+        edit.inFlight = false;
+        if (edit.handedOff) {
+            // Write ditolak/gagal, jadi tidak lagi ada di antrian Firestore
+            edit.handedOff = false;
+            persist();
+        }
+        long delay = Math.min(INITIAL_BACKOFF_MS << Math.min(failedAttempts, 16), MAX_BACKOFF_MS);
+        failedAttempts++;
+        return delay;
+    }
+
+    /**
+     * Koneksi kembali atau ada pengiriman yang berhasil: mulai backoff dari awal.
+     */
+    synchronized void resetBackoff() {
+        failedAttempts = 0;
+    }
+
+    /**
+     * @return edit yang belum sedang dikirim, dalam urutan edit
+     */
+    synchronized List<Edit> getReplayable() {
+        List<Edit> result = new ArrayList<>();
+        for (Edit edit : edits.values()) {
+            if (!edit.inFlight) result.add(edit);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return edits.size();
+    }
+
+    /**
+     * Hapus semua edit (logout: edit milik akun lain tidak boleh ikut terkirim).
+     */
+    synchronized void clear() {
+        edits.clear();
+        ioExecutor.execute(file::delete);
+    }
+
+    private void persist() {
+        List<Edit> snapshot = new ArrayList<>(edits.values());
+        ioExecutor.execute(() -> write(snapshot));
+    }
+
+    private void write(List<Edit> snapshot) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(snapshot.size());
+            for (Edit edit : snapshot) {
+                out.writeLong(edit.seq);
+                out.writeUTF(edit.regionId);
+                out.writeUTF(edit.status.getKey());
+                out.writeUTF(edit.info);
+                out.writeLong(edit.createdAt);
+                out.writeUTF(edit.editId);
+                out.writeBoolean(edit.handedOff);
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Error writing outbox", e);
+            if (stream != null) file.failWrite(stream);
+        }
+    }
+}
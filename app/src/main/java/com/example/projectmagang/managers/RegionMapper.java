@@ -0,0 +1,84 @@
+package com.example.projectmagang.managers;
+
+import android.util.Log;
+
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionHistoryEntry;
+import com.example.projectmagang.models.RegionStatus;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+/**
+ * Mapper manual dokumen Firestore ke {@link Region}, pengganti
+ * {@code toObject(Region.class)} yang berbasis reflection.
+ */
+public final class RegionMapper {
+    private static final String TAG = "RegionMapper";
+
+    static final String FIELD_NAME = "name";
+    static final String FIELD_STATUS = "status";
+    static final String FIELD_INFO = "info";
+    static final String FIELD_LAST_UPDATE = "lastUpdate";
+
+    // Subcollection riwayat: region/{id}/history/{auto-id}
+    static final String COLLECTION_HISTORY = "history";
+    static final String FIELD_HISTORY_AT = "at";
+
+    private RegionMapper() {
+    }
+
+    /**
+     * lastUpdate yang masih menunggu serverTimestamp() memakai estimasi lokal,
+     * supaya baris pending/optimistic tetap menampilkan waktu.
+     *
+     * @return region, atau null jika dokumen tidak bisa dibaca
+     */
+    public static Region fromDocument(DocumentSnapshot doc) {
+        try {
+            return new Region(
+                    doc.getId(),
+                    doc.getString(FIELD_NAME),
+                    doc.getString(FIELD_STATUS),
+                    doc.getString(FIELD_INFO),
+                    doc.getTimestamp(FIELD_LAST_UPDATE,
+                            DocumentSnapshot.ServerTimestampBehavior.ESTIMATE),
+                    doc.getMetadata().hasPendingWrites());
+        } catch (RuntimeException e) {
+            // getString/getTimestamp melempar jika tipe field tidak sesuai
+            Log.e(TAG, "Error parsing region: " + doc.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * lastUpdate dokumen region apa adanya (untuk cursor query), atau null.
+     */
+    public static Timestamp lastUpdateOf(DocumentSnapshot doc) {
+        try {
+            return doc.getTimestamp(FIELD_LAST_UPDATE);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Entri riwayat status. Timestamp server yang belum terkonfirmasi memakai
+     * estimasi lokal supaya edit offline tetap muncul di timeline.
+     *
+     * @return entri, atau null jika dokumen tidak bisa dibaca
+     */
+    public static RegionHistoryEntry historyFromDocument(DocumentSnapshot doc) {
+        try {
+            Timestamp at = doc.getTimestamp(FIELD_HISTORY_AT,
+                    DocumentSnapshot.ServerTimestampBehavior.ESTIMATE);
+            if (at == null) return null;
+            return new RegionHistoryEntry(
+                    RegionStatus.parse(doc.getString(FIELD_STATUS)),
+                    doc.getString(FIELD_INFO),
+                    at.toDate().getTime());
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error parsing history entry: " + doc.getId(), e);
+            return null;
+        }
+    }
+}
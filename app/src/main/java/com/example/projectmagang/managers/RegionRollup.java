@@ -0,0 +1,130 @@
+package com.example.projectmagang.managers;
+
+import com.example.projectmagang.geometry.RegionHierarchy;
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionStatistics;
+import com.example.projectmagang.models.RegionStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agregat status bertingkat kota → kecamatan → kelurahan yang diperbarui
+ * per perubahan region (O(kedalaman), bukan scan ulang seluruh list).
+ * Dipanggil oleh {@link RegionStore#apply} sehingga selalu sinkron dengan store.
+ *
+ * <p>Sebelum {@link RegionHierarchy} selesai dimuat hanya total kota yang
+ * tersedia; saat hierarki masuk, total per kecamatan dibangun sekali.</p>
+ */
+public class RegionRollup {
+    private static final int BUCKETS = RegionStatus.count();
+
+    /**
+     * Ringkasan satu kecamatan untuk drill-down.
+     */
+    public static final class DistrictSummary {
+        private final RegionHierarchy.District district;
+        private final RegionStatistics statistics;
+
+        DistrictSummary(RegionHierarchy.District district, RegionStatistics statistics) {
+            this.district = district;
+            this.statistics = statistics;
+        }
+
+        public String getId() {
+            return district.getId();
+        }
+
+        public String getName() {
+            return district.getName();
+        }
+
+        public List<String> getWardIds() {
+            return district.getWardIds();
+        }
+
+        public RegionStatistics getStatistics() {
+            return statistics;
+        }
+    }
+
+    // Status terakhir per region, untuk mengurangi hitungan lama saat berubah.
+    // Hitungan disimpan per RegionStatus.ordinal().
+    private final Map<String, RegionStatus> statusByRegion = new HashMap<>();
+    private final int[] cityCounts = new int[BUCKETS];
+    private RegionHierarchy hierarchy;
+    private int[][] districtCounts = new int[0][];
+
+    synchronized void onRegionChanged(String regionId, Region newRegion) {
+        RegionStatus newStatus = newRegion != null ? newRegion.getStatusType() : null;
+        RegionStatus oldStatus = newStatus != null
+                ? statusByRegion.put(regionId, newStatus)
+                : statusByRegion.remove(regionId);
+        if (oldStatus == newStatus) return;
+
+        int district = hierarchy != null ? hierarchy.getDistrictIndex(regionId) : -1;
+        if (oldStatus != null) {
+            cityCounts[oldStatus.ordinal()]--;
+            if (district >= 0) districtCounts[district][oldStatus.ordinal()]--;
+        }
+        if (newStatus != null) {
+            cityCounts[newStatus.ordinal()]++;
+            if (district >= 0) districtCounts[district][newStatus.ordinal()]++;
+        }
+    }
+
+    synchronized void clear() {
+        statusByRegion.clear();
+        Arrays.fill(cityCounts, 0);
+        for (int[] counts : districtCounts) {
+            Arrays.fill(counts, 0);
+        }
+    }
+
+    /**
+     * Pasang hierarki kecamatan. Total per kecamatan dihitung sekali dari
+     * status yang sudah tercatat; setelah itu diperbarui secara inkremental.
+     */
+    public synchronized void setHierarchy(RegionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        districtCounts = new int[hierarchy.getDistricts().size()][BUCKETS];
+        for (Map.Entry<String, RegionStatus> entry : statusByRegion.entrySet()) {
+            int district = hierarchy.getDistrictIndex(entry.getKey());
+            if (district >= 0) districtCounts[district][entry.getValue().ordinal()]++;
+        }
+    }
+
+    public synchronized boolean hasHierarchy() {
+        return hierarchy != null;
+    }
+
+    public synchronized RegionStatistics getCityStatistics() {
+        return toStatistics(cityCounts);
+    }
+
+    /**
+     * @return ringkasan per kecamatan, kosong jika hierarki belum dimuat
+     */
+    public synchronized List<DistrictSummary> getDistrictSummaries() {
+        if (hierarchy == null) return Collections.emptyList();
+
+        List<RegionHierarchy.District> districts = hierarchy.getDistricts();
+        List<DistrictSummary> summaries = new ArrayList<>(districts.size());
+        for (int i = 0; i < districts.size(); i++) {
+            summaries.add(new DistrictSummary(districts.get(i), toStatistics(districtCounts[i])));
+        }
+        return summaries;
+    }
+
+    public synchronized String getWardName(String wardId) {
+        return hierarchy != null ? hierarchy.getWardName(wardId) : null;
+    }
+
+    private static RegionStatistics toStatistics(int[] counts) {
+        return RegionStatistics.fromCounts(counts.clone());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.projectmagang.managers;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.projectmagang.models.RegionStatistics;
+import com.example.projectmagang.models.RegionStatus;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistik seluruh region. Selama listener semua region hidup (mode "all"),
+ * angka diambil dari {@link RegionRollup} store tersebut tanpa read tambahan.
+ * Jika tidak (mode "hanya gangguan", atau sebelum snapshot pertama), dipakai
+ * aggregate query Firestore: satu count() total plus satu count() per status
+ * yang dikenal, beberapa read (1 per 1000 dokumen per query) alih-alih unduh
+ * seluruh koleksi. Sisa total yang tidak cocok dengan status mana pun dihitung
+ * sebagai {@link RegionStatus#UNKNOWN}.
+ *
+ * <p>Hasil count() di-cache sebentar; saat query gagal (mis. offline) dipakai
+ * {@link RegionStatistics#calculate} atas region terakhir yang diketahui.</p>
+ */
+public class RegionStatisticsSource {
+    private static final String TAG = "RegionStatisticsSource";
+    private static final long CACHE_TTL_MS = 30_000;
+
+    public interface OnStatisticsLoadedListener {
+        /**
+         * @param fromServer false jika hasil fallback dari data lokal
+         */
+        void onStatisticsLoaded(RegionStatistics statistics, boolean fromServer);
+
+        void onError(String error);
+    }
+
+    private final CollectionReference collection;
+    private final RegionSubscriptionHub regionsHub;
+    private RegionStatistics cached;
+    private long cachedAt;
+
+    RegionStatisticsSource(CollectionReference collection, RegionSubscriptionHub regionsHub) {
+        this.collection = collection;
+        this.regionsHub = regionsHub;
+    }
+
+    /**
+     * Muat statistik. Harus dipanggil di main thread; listener juga di main thread.
+     */
+    public void load(OnStatisticsLoadedListener listener) {
+        if (regionsHub.isLive()) {
+            // Semua region sudah di memori dan mengikuti snapshot: tanpa count()
+            listener.onStatisticsLoaded(regionsHub.getStore().getRollup().getCityStatistics(), true);
+            return;
+        }
+
+        synchronized (this) {
+            if (cached != null && SystemClock.elapsedRealtime() - cachedAt < CACHE_TTL_MS) {
+                listener.onStatisticsLoaded(cached, true);
+                return;
+            }
+        }
+
+        // Index 0 = total, lalu satu query per status selain UNKNOWN
+        List<RegionStatus> statuses = new ArrayList<>();
+        List<Task<AggregateQuerySnapshot>> tasks = new ArrayList<>();
+        tasks.add(collection.count().get(AggregateSource.SERVER));
+        for (RegionStatus status : RegionStatus.values()) {
+            if (status == RegionStatus.UNKNOWN) continue;
+            statuses.add(status);
+            tasks.add(collection.whereIn(RegionMapper.FIELD_STATUS, status.queryValues())
+                    .count().get(AggregateSource.SERVER));
+        }
+
+        Tasks.<AggregateQuerySnapshot>whenAllSuccess(tasks)
+                .addOnSuccessListener(results -> {
+                    long total = results.get(0).getCount();
+                    int[] counts = new int[RegionStatus.count()];
+                    long known = 0;
+                    for (int i = 0; i < statuses.size(); i++) {
+                        long count = results.get(i + 1).getCount();
+                        counts[statuses.get(i).ordinal()] = (int) count;
+                        known += count;
+                    }
+                    counts[RegionStatus.UNKNOWN.ordinal()] = (int) Math.max(0, total - known);
+
+                    RegionStatistics statistics = RegionStatistics.fromCounts(counts);
+                    synchronized (this) {
+                        cached = statistics;
+                        cachedAt = SystemClock.elapsedRealtime();
+                    }
+                    Log.d(TAG, "✅ Aggregated statistics: " + statistics);
+                    listener.onStatisticsLoaded(statistics, true);
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "⚠️ Aggregation failed, falling back to local data", e);
+                    // Store utama berisi snapshot terakhir atau seed dari RegionCache
+                    RegionStore store = regionsHub.getStore();
+                    if (!store.isEmpty()) {
+                        listener.onStatisticsLoaded(RegionStatistics.calculate(store.getAll()), false);
+                    } else {
+                        listener.onError(e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Buang cache (mis. setelah edit status), supaya load berikutnya query ulang.
+     */
+    public synchronized void invalidate() {
+        cached = null;
+    }
+}
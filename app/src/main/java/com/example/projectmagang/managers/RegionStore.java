@@ -0,0 +1,87 @@
+package com.example.projectmagang.managers;
+
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionChangeSet;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Penyimpanan region di memori yang bertahan antar snapshot.
+ * Diurutkan berdasarkan id supaya urutannya sama dengan urutan default Firestore.
+ */
+public class RegionStore {
+    private final Map<String, Region> regions = new TreeMap<>();
+    private final RegionRollup rollup = new RegionRollup();
+    // Dipasang di semua store; transisi yang sama dari dua store diabaikan engine
+    private volatile OutageMetricsEngine metricsEngine;
+
+    /**
+     * Agregat status per kecamatan/kota, diperbarui bersamaan dengan store.
+     */
+    public RegionRollup getRollup() {
+        return rollup;
+    }
+
+    void setMetricsEngine(OutageMetricsEngine metricsEngine) {
+        this.metricsEngine = metricsEngine;
+    }
+
+    public synchronized Region get(String regionId) {
+        return regions.get(regionId);
+    }
+
+    public synchronized boolean contains(String regionId) {
+        return regions.containsKey(regionId);
+    }
+
+    public synchronized Set<String> getIds() {
+        return new HashSet<>(regions.keySet());
+    }
+
+    public synchronized List<Region> getAll() {
+        return new ArrayList<>(regions.values());
+    }
+
+    public synchronized int size() {
+        return regions.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return regions.isEmpty();
+    }
+
+    /**
+     * Terapkan perubahan ke store. Biaya sebanding dengan jumlah perubahan,
+     * bukan jumlah total region.
+     */
+    public synchronized void apply(RegionChangeSet changes) {
+        OutageMetricsEngine metrics = metricsEngine;
+        for (Region region : changes.getAdded()) {
+            regions.put(region.getId(), region);
+            rollup.onRegionChanged(region.getId(), region);
+            if (metrics != null) metrics.onRegionChanged(region.getId(), region);
+        }
+        for (Region region : changes.getModified()) {
+            regions.put(region.getId(), region);
+            rollup.onRegionChanged(region.getId(), region);
+            if (metrics != null) metrics.onRegionChanged(region.getId(), region);
+        }
+        long now = System.currentTimeMillis();
+        for (String regionId : changes.getRemoved()) {
+            if (regions.remove(regionId) != null) {
+                rollup.onRegionChanged(regionId, null);
+                if (metrics != null) metrics.onRegionRemoved(regionId, now);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        regions.clear();
+        rollup.clear();
+    }
+}
@@ -0,0 +1,431 @@
+package com.example.projectmagang.managers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionChangeSet;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Satu snapshot listener Firestore yang dibagikan ke banyak subscriber.
+ * Listener upstream dipasang saat subscriber pertama masuk dan dilepas saat
+ * subscriber terakhir keluar.
+ *
+ * <p>Snapshot di-decode di {@code decodeExecutor}; subscriber selalu dipanggil
+ * di main thread dengan hasil yang sudah jadi.</p>
+ */
+public class RegionSubscriptionHub {
+    private static final String TAG = "RegionSubscriptionHub";
+
+    private final String name;
+    private final Query query;
+    private final RegionStore store;
+    private final Executor decodeExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<FirebaseManager.OnRegionChangesListener> subscribers =
+            new CopyOnWriteArrayList<>();
+
+    private ListenerRegistration upstream;
+    private volatile boolean awaitingFirstSnapshot = true;
+    private volatile boolean receivedSnapshot;
+    private Runnable onStoreChangedListener;
+    private Runnable onDetachedListener;
+    private Runnable onResyncedListener;
+
+    /**
+     * Edit optimistic yang belum dikonfirmasi: versi server terakhir (untuk
+     * rollback) dan token edit terakhir. Hasil edit lama yang sudah tergantikan
+     * diabaikan. Hanya diakses di decodeExecutor.
+     */
+    private static final class OptimisticEntry {
+        Region serverVersion;
+        // Write edit terakhir sudah ada di antrian lokal Firestore
+        boolean submitted;
+        // Ada snapshot server (tanpa pending write) setelah write diserahkan,
+        // yaitu versi yang sudah mencakup edit ini
+        boolean serverUpdated;
+        long latestToken;
+    }
+
+    private final Map<String, OptimisticEntry> optimistic = new HashMap<>();
+
+    /**
+     * Satu perubahan dokumen dari snapshot yang sudah di-decode;
+     * {@code region} null untuk REMOVED.
+     */
+    static final class DocumentDelta {
+        final DocumentChange.Type type;
+        final String regionId;
+        final Region region;
+
+        DocumentDelta(DocumentChange.Type type, String regionId, Region region) {
+            this.type = type;
+            this.regionId = regionId;
+            this.region = region;
+        }
+    }
+
+    RegionSubscriptionHub(String name, Query query, RegionStore store, Executor decodeExecutor) {
+        this.name = name;
+        this.query = query;
+        this.store = store;
+        this.decodeExecutor = decodeExecutor;
+    }
+
+    public RegionStore getStore() {
+        return store;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Hook yang dipanggil di thread decode setiap kali store berubah karena
+     * snapshot Firestore (dipakai untuk menulis cache lokal).
+     */
+    public void setOnStoreChangedListener(Runnable listener) {
+        this.onStoreChangedListener = listener;
+    }
+
+    /**
+     * Hook yang dipanggil di main thread saat listener upstream dilepas; sejak
+     * itu store tidak lagi menerima perubahan sampai subscriber berikutnya.
+     */
+    public void setOnDetachedListener(Runnable listener) {
+        this.onDetachedListener = listener;
+    }
+
+    /**
+     * Hook yang dipanggil di thread decode setelah snapshot pertama dari
+     * listener upstream yang baru dipasang diterapkan ke store.
+     */
+    public void setOnResyncedListener(Runnable listener) {
+        this.onResyncedListener = listener;
+    }
+
+    /**
+     * @return true selama listener upstream terpasang (main thread)
+     */
+    public boolean isAttached() {
+        return upstream != null;
+    }
+
+    /**
+     * @return true jika listener terpasang dan store sudah berisi snapshot
+     *         Firestore (bukan hanya seed cache), jadi store mengikuti data terkini
+     */
+    public boolean isLive() {
+        return upstream != null && receivedSnapshot;
+    }
+
+    /**
+     * Isi store dengan data cache lokal selama Firestore belum menjawab.
+     * Snapshot pertama nanti dicocokkan dengan data ini, jadi hanya selisihnya
+     * yang diteruskan ke subscriber.
+     */
+    public void seed(List<Region> regions) {
+        if (regions.isEmpty()) return;
+
+        decodeExecutor.execute(() -> {
+            if (receivedSnapshot || !store.isEmpty()) {
+                Log.d(TAG, "[" + name + "] Live data already present, cache seed skipped");
+                return;
+            }
+
+            RegionChangeSet changes = new RegionChangeSet();
+            for (Region region : regions) {
+                changes.add(region);
+            }
+            store.apply(changes);
+
+            Log.d(TAG, "📦 [" + name + "] Seeded from cache: " + changes);
+            mainHandler.post(() -> {
+                for (FirebaseManager.OnRegionChangesListener subscriber : subscribers) {
+                    subscriber.onRegionsChanged(changes, store);
+                }
+            });
+        });
+    }
+
+    /**
+     * Terapkan edit lokal ke store dan subscriber sebelum Firestore menjawab.
+     * Selama edit berjalan, snapshot server untuk region ini tidak menimpa
+     * tampilan; versinya hanya dicatat sebagai titik rollback.
+     *
+     * @param token id unik edit ini, dipakai lagi di confirm/rollback
+     */
+    public void applyOptimistic(Region region, long token) {
+        decodeExecutor.execute(() -> {
+            OptimisticEntry entry = optimistic.get(region.getId());
+            if (entry == null) {
+                entry = new OptimisticEntry();
+                entry.serverVersion = store.get(region.getId());
+                optimistic.put(region.getId(), entry);
+            }
+            entry.latestToken = token;
+            entry.submitted = false;
+            entry.serverUpdated = false;
+
+            RegionChangeSet changes = new RegionChangeSet();
+            if (store.contains(region.getId())) {
+                changes.modify(region);
+            } else {
+                changes.add(region);
+            }
+            Log.d(TAG, "⚡ [" + name + "] Optimistic update: " + region.getId());
+            applyAndDispatch(changes);
+        });
+    }
+
+    /**
+     * Write edit sudah diserahkan ke Firestore. Snapshot tanpa pending write
+     * sesudah titik ini adalah versi server yang sudah mencakup edit tersebut;
+     * snapshot sebelumnya (mis. edit client lain selama coalescing) tidak.
+     */
+    public void markSubmitted(String regionId, long token) {
+        decodeExecutor.execute(() -> {
+            OptimisticEntry entry = optimistic.get(regionId);
+            if (entry == null || entry.latestToken != token) return;
+            entry.submitted = true;
+        });
+    }
+
+    /**
+     * Edit sudah diterima server. Snapshot berikutnya (hasPendingWrites = false)
+     * akan membawa nilai final, termasuk lastUpdate dari server.
+     */
+    public void confirmOptimistic(String regionId, long token) {
+        decodeExecutor.execute(() -> {
+            OptimisticEntry entry = optimistic.get(regionId);
+            if (entry == null || entry.latestToken != token) return;
+            optimistic.remove(regionId);
+
+            // Snapshot final bisa saja tiba sebelum callback commit; terapkan sekarang.
+            // Versi dari sebelum write diserahkan sudah basi dan diabaikan: snapshot
+            // dengan hasPendingWrites = false berikutnya yang menetapkan nilainya.
+            Region current = store.get(regionId);
+            if (entry.serverUpdated && !entry.serverVersion.hasSameContent(current)) {
+                RegionChangeSet changes = new RegionChangeSet();
+                changes.modify(entry.serverVersion);
+                applyAndDispatch(changes);
+            }
+        });
+    }
+
+    /**
+     * Edit gagal: kembalikan region ke versi server terakhir. Diabaikan jika
+     * sudah ada edit yang lebih baru untuk region yang sama.
+     */
+    public void rollbackOptimistic(String regionId, long token) {
+        decodeExecutor.execute(() -> {
+            OptimisticEntry entry = optimistic.get(regionId);
+            if (entry == null || entry.latestToken != token) return;
+            optimistic.remove(regionId);
+
+            RegionChangeSet changes = new RegionChangeSet();
+            if (entry.serverVersion != null) {
+                changes.modify(entry.serverVersion);
+            } else {
+                changes.remove(regionId);
+            }
+            Log.w(TAG, "↩️ [" + name + "] Rolled back optimistic update: " + regionId);
+            applyAndDispatch(changes);
+        });
+    }
+
+    private void applyAndDispatch(RegionChangeSet changes) {
+        store.apply(changes);
+        if (onStoreChangedListener != null) {
+            onStoreChangedListener.run();
+        }
+        mainHandler.post(() -> {
+            for (FirebaseManager.OnRegionChangesListener subscriber : subscribers) {
+                subscriber.onRegionsChanged(changes, store);
+            }
+        });
+    }
+
+    /**
+     * Tambah subscriber. Jika store sudah berisi data, subscriber langsung
+     * menerima seluruh isi store sebagai perubahan "added".
+     */
+    public void subscribe(FirebaseManager.OnRegionChangesListener listener) {
+        if (listener == null || subscribers.contains(listener)) return;
+
+        subscribers.add(listener);
+        Log.d(TAG, "➕ [" + name + "] Subscriber added | total: " + subscribers.size());
+
+        if (upstream == null) {
+            attachUpstream();
+        }
+
+        if (!store.isEmpty()) {
+            RegionChangeSet replay = new RegionChangeSet();
+            for (Region region : store.getAll()) {
+                replay.add(region);
+            }
+            listener.onRegionsChanged(replay, store);
+        }
+    }
+
+    public void unsubscribe(FirebaseManager.OnRegionChangesListener listener) {
+        if (!subscribers.remove(listener)) return;
+
+        Log.d(TAG, "➖ [" + name + "] Subscriber removed | total: " + subscribers.size());
+
+        if (subscribers.isEmpty()) {
+            detachUpstream();
+        }
+    }
+
+    public void unsubscribeAll() {
+        subscribers.clear();
+        detachUpstream();
+    }
+
+    private void attachUpstream() {
+        Log.d(TAG, "🔔 [" + name + "] Attaching upstream snapshot listener");
+
+        awaitingFirstSnapshot = true;
+        // Callback berjalan di decodeExecutor, bukan main thread. INCLUDE supaya
+        // perubahan hasPendingWrites (edit terkonfirmasi) juga diterima.
+        upstream = query.addSnapshotListener(decodeExecutor, MetadataChanges.INCLUDE, (value, error) -> {
+            if (error != null) {
+                Log.e(TAG, "[" + name + "] Listen failed", error);
+                String message = error.getMessage();
+                mainHandler.post(() -> {
+                    for (FirebaseManager.OnRegionChangesListener subscriber : subscribers) {
+                        subscriber.onError(message);
+                    }
+                });
+                return;
+            }
+
+            if (value != null) {
+                applySnapshot(decode(value));
+            }
+        });
+    }
+
+    private static List<DocumentDelta> decode(QuerySnapshot value) {
+        List<DocumentChange> documentChanges = value.getDocumentChanges();
+        List<DocumentDelta> deltas = new ArrayList<>(documentChanges.size());
+        for (DocumentChange change : documentChanges) {
+            DocumentSnapshot doc = change.getDocument();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                deltas.add(new DocumentDelta(change.getType(), doc.getId(), null));
+                continue;
+            }
+
+            Region region = RegionMapper.fromDocument(doc);
+            if (region == null) continue;
+            deltas.add(new DocumentDelta(change.getType(), region.getId(), region));
+        }
+        return deltas;
+    }
+
+    /**
+     * Terapkan satu snapshot ke store dan teruskan selisihnya ke subscriber.
+     * Dipanggil di decodeExecutor.
+     */
+    void applySnapshot(List<DocumentDelta> deltas) {
+        boolean firstSnapshot = awaitingFirstSnapshot;
+        RegionChangeSet changes = buildChangeSet(deltas, firstSnapshot);
+        awaitingFirstSnapshot = false;
+        receivedSnapshot = true;
+        store.apply(changes);
+        if (!changes.isEmpty() && onStoreChangedListener != null) {
+            onStoreChangedListener.run();
+        }
+        if (firstSnapshot && onResyncedListener != null) {
+            onResyncedListener.run();
+        }
+
+        Log.d(TAG, "🔄 [" + name + "] " + changes + " | total: " + store.size());
+        // Snapshot pertama tetap diteruskan walau kosong supaya UI keluar dari loading state
+        if (changes.isEmpty() && !firstSnapshot) return;
+
+        mainHandler.post(() -> {
+            for (FirebaseManager.OnRegionChangesListener subscriber : subscribers) {
+                subscriber.onRegionsChanged(changes, store);
+            }
+        });
+    }
+
+    private void detachUpstream() {
+        if (upstream != null) {
+            Log.d(TAG, "🔕 [" + name + "] Detaching upstream snapshot listener");
+            upstream.remove();
+            upstream = null;
+            if (onDetachedListener != null) onDetachedListener.run();
+        }
+    }
+
+    private RegionChangeSet buildChangeSet(List<DocumentDelta> deltas, boolean firstSnapshot) {
+        RegionChangeSet changes = new RegionChangeSet();
+        // Snapshot pertama dari listener baru mengirim semua dokumen sebagai ADDED;
+        // cocokkan dengan isi store supaya hanya perbedaan yang diteruskan.
+        Set<String> staleIds = firstSnapshot ? store.getIds() : null;
+
+        for (DocumentDelta delta : deltas) {
+            if (delta.type == DocumentChange.Type.REMOVED) {
+                changes.remove(delta.regionId);
+                continue;
+            }
+
+            Region region = delta.region;
+            OptimisticEntry entry = optimistic.get(region.getId());
+            if (entry != null) {
+                if (staleIds != null) staleIds.remove(region.getId());
+                if (!region.isPendingWrite()) {
+                    // Versi server yang lebih baru; tampilan optimistic dipertahankan
+                    entry.serverVersion = region;
+                    entry.serverUpdated = entry.submitted;
+                    continue;
+                }
+            }
+
+            if (staleIds != null) {
+                staleIds.remove(region.getId());
+                Region existing = store.get(region.getId());
+                if (existing == null) {
+                    changes.add(region);
+                } else if (!existing.hasSameContent(region)) {
+                    changes.modify(region);
+                }
+            } else if (delta.type == DocumentChange.Type.ADDED) {
+                changes.add(region);
+            } else {
+                // Dengan MetadataChanges.INCLUDE, MODIFIED bisa berarti hanya metadata
+                // yang berubah; lewati jika isi yang terlihat tetap sama
+                Region existing = store.get(region.getId());
+                if (existing == null || !existing.hasSameContent(region)) {
+                    changes.modify(region);
+                }
+            }
+        }
+
+        if (staleIds != null) {
+            for (String regionId : staleIds) {
+                changes.remove(regionId);
+            }
+        }
+        return changes;
+    }
+}
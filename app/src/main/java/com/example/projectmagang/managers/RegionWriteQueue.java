@@ -0,0 +1,294 @@
+package com.example.projectmagang.managers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.projectmagang.models.RegionStatus;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Antrian write-behind untuk edit status region oleh admin.
+ *
+ * <p>Edit yang masuk dalam {@link #COALESCE_WINDOW_MS} dikumpulkan; edit berulang
+ * ke region yang sama digabung (nilai terakhir menang), lalu semuanya dikirim
+ * sebagai {@link WriteBatch} berisi paling banyak {@link #MAX_BATCH_OPS} operasi.
+ * Setiap edit tetap mendapat callback sendiri dengan hasil batch-nya.</p>
+ *
+ * <p>Batch bersifat atomik, jadi jika batch berisi beberapa edit ditolak
+ * permanen (mis. satu dokumen tidak ada, atau ditolak rules), setiap edit
+ * dikirim ulang sendiri-sendiri supaya hanya edit yang bermasalah yang gagal.</p>
+ *
+ * <p>Setiap edit juga menulis satu entri ke {@code region/{id}/history} di
+ * batch yang sama, jadi riwayat dan status tidak pernah saling tertinggal.
+ * Id dokumen riwayat = id edit, sehingga pengiriman ulang edit yang sama
+ * menimpa entrinya, bukan menambah entri baru.</p>
+ */
+public class RegionWriteQueue {
+    private static final String TAG = "RegionWriteQueue";
+    private static final long COALESCE_WINDOW_MS = 300;
+    // Batas operasi per WriteBatch di Firestore
+    private static final int MAX_BATCH_OPS = 500;
+    // Update dokumen region + entri history
+    private static final int OPS_PER_EDIT = 2;
+    // Commit belum dikonfirmasi selama ini: cek apakah masih tertahan di antrian lokal
+    private static final long QUEUED_CHECK_MS = 2000;
+
+    /**
+     * Hasil penulisan; exception asli diteruskan supaya pemanggil bisa
+     * membedakan gagal sementara (offline) dan gagal permanen.
+     */
+    interface WriteCallback {
+        void onSuccess();
+
+        void onFailure(Exception e);
+
+        /**
+         * Batch sudah diserahkan ke Firestore. Dengan persistence aktif, write
+         * tersimpan di antrian mutasi lokal Firestore dan dikirim olehnya
+         * (juga setelah aplikasi dibuka ulang); commit hanya gagal jika
+         * server menolak.
+         */
+        default void onSubmitted() {
+        }
+
+        /** Write masih tertahan di antrian lokal (dokumen hasPendingWrites), mis. offline. */
+        default void onQueued() {
+        }
+    }
+
+    /**
+     * Hasil commit satu batch, dilaporkan oleh {@link BatchCommitter}.
+     */
+    interface BatchCallback {
+        void onSuccess();
+
+        void onFailure(Exception e);
+
+        /** Write untuk region ini masih tertahan di antrian lokal. */
+        void onQueued(String regionId);
+    }
+
+    /**
+     * Menulis satu batch (update region + entri riwayat per edit) secara atomik.
+     * Di aplikasi ini WriteBatch Firestore; test memakai implementasi sendiri.
+     */
+    interface BatchCommitter {
+        void commit(List<Map.Entry<String, PendingEdit>> entries, BatchCallback callback);
+    }
+
+    static final class PendingEdit {
+        String editId;
+        RegionStatus status;
+        String info;
+        final List<WriteCallback> listeners = new ArrayList<>();
+    }
+
+    private final BatchCommitter committer;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    // Urutan masuk dipertahankan supaya batch mengikuti urutan edit
+    private final Map<String, PendingEdit> pending = new LinkedHashMap<>();
+    private boolean flushScheduled = false;
+
+    RegionWriteQueue(FirebaseFirestore db, CollectionReference collection) {
+        this(new FirestoreCommitter(db, collection));
+    }
+
+    RegionWriteQueue(BatchCommitter committer) {
+        this.committer = committer;
+    }
+
+    /**
+     * Masukkan edit ke antrian. Flush dijadwalkan sekali per jendela, tidak
+     * digeser oleh edit berikutnya, jadi latensi maksimum tetap terbatas.
+     */
+    public synchronized void enqueue(String regionId, String editId, RegionStatus status, String info,
+                                     WriteCallback listener) {
+        PendingEdit edit = pending.get(regionId);
+        if (edit == null) {
+            edit = new PendingEdit();
+            pending.put(regionId, edit);
+        } else {
+            Log.d(TAG, "🔁 Coalescing edit for " + regionId);
+        }
+        // Edit yang digabung menjadi satu entri riwayat dengan id edit terakhir
+        edit.editId = editId;
+        edit.status = status;
+        edit.info = info;
+        if (listener != null) edit.listeners.add(listener);
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            mainHandler.postDelayed(flushRunnable, COALESCE_WINDOW_MS);
+        }
+    }
+
+    /**
+     * Kirim semua edit yang tertunda sekarang juga.
+     */
+    public void flush() {
+        Map<String, PendingEdit> edits;
+        synchronized (this) {
+            mainHandler.removeCallbacks(flushRunnable);
+            flushScheduled = false;
+            if (pending.isEmpty()) return;
+            edits = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+
+        List<Map.Entry<String, PendingEdit>> entries = new ArrayList<>(edits.entrySet());
+        int editsPerBatch = MAX_BATCH_OPS / OPS_PER_EDIT;
+        for (int start = 0; start < entries.size(); start += editsPerBatch) {
+            commitBatch(entries.subList(start, Math.min(start + editsPerBatch, entries.size())));
+        }
+    }
+
+    private void commitBatch(List<Map.Entry<String, PendingEdit>> entries) {
+        int size = entries.size();
+        Log.d(TAG, "📦 Committing batch of " + size + " region updates");
+        List<WriteCallback> listeners = new ArrayList<>();
+        for (Map.Entry<String, PendingEdit> entry : entries) {
+            listeners.addAll(entry.getValue().listeners);
+        }
+
+        committer.commit(entries, new BatchCallback() {
+            @Override
+            public void onSuccess() {
+                Log.d(TAG, "✅ Batch committed: " + size + " regions");
+                for (WriteCallback listener : listeners) {
+                    listener.onSuccess();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // Batch atomik: satu dokumen yang ditolak menggagalkan semuanya.
+                // Pisahkan supaya edit lain di batch ini tetap tersimpan.
+                if (size > 1 && !isTransient(e)) {
+                    Log.w(TAG, "⚠️ Batch rejected, resubmitting " + size + " edits one by one", e);
+                    for (Map.Entry<String, PendingEdit> entry : entries) {
+                        commitBatch(Collections.singletonList(entry));
+                    }
+                    return;
+                }
+
+                Log.e(TAG, "❌ Batch failed: " + size + " regions", e);
+                for (WriteCallback listener : listeners) {
+                    listener.onFailure(e);
+                }
+            }
+
+            @Override
+            public void onQueued(String regionId) {
+                for (Map.Entry<String, PendingEdit> entry : entries) {
+                    if (!entry.getKey().equals(regionId)) continue;
+                    Log.d(TAG, "📴 Write pending in local queue: " + regionId);
+                    for (WriteCallback listener : entry.getValue().listeners) {
+                        listener.onQueued();
+                    }
+                }
+            }
+        });
+        for (WriteCallback listener : listeners) {
+            listener.onSubmitted();
+        }
+    }
+
+    /**
+     * Gagal sementara (jaringan, kuota, konflik): edit layak dikirim ulang.
+     * Selain itu (NOT_FOUND, PERMISSION_DENIED, ...) dianggap permanen.
+     */
+    static boolean isTransient(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) return false;
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case ABORTED:
+            case RESOURCE_EXHAUSTED:
+            case INTERNAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Commit lewat {@link WriteBatch} Firestore.
+     */
+    private static final class FirestoreCommitter implements BatchCommitter {
+        private final FirebaseFirestore db;
+        private final CollectionReference collection;
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        FirestoreCommitter(FirebaseFirestore db, CollectionReference collection) {
+            this.db = db;
+            this.collection = collection;
+        }
+
+        @Override
+        public void commit(List<Map.Entry<String, PendingEdit>> entries, BatchCallback callback) {
+            WriteBatch batch = db.batch();
+
+            for (Map.Entry<String, PendingEdit> entry : entries) {
+                PendingEdit edit = entry.getValue();
+                Map<String, Object> updates = new HashMap<>();
+                updates.put(RegionMapper.FIELD_STATUS, edit.status.getKey());
+                updates.put(RegionMapper.FIELD_INFO, edit.info != null ? edit.info : "");
+                updates.put(RegionMapper.FIELD_LAST_UPDATE, FieldValue.serverTimestamp());
+                DocumentReference region = collection.document(entry.getKey());
+                batch.update(region, updates);
+                batch.set(region.collection(RegionMapper.COLLECTION_HISTORY).document(edit.editId),
+                        historyEntry(edit));
+            }
+
+            Task<Void> commit = batch.commit();
+            mainHandler.postDelayed(() -> checkQueued(commit, entries, callback), QUEUED_CHECK_MS);
+            commit.addOnSuccessListener(aVoid -> callback.onSuccess())
+                    .addOnFailureListener(callback::onFailure);
+        }
+
+        /**
+         * Commit yang belum selesai: laporkan "queued" untuk region yang dokumennya
+         * masih membawa pending write di cache lokal Firestore.
+         */
+        private void checkQueued(Task<Void> commit, List<Map.Entry<String, PendingEdit>> entries,
+                                 BatchCallback callback) {
+            if (commit.isComplete()) return;
+            for (Map.Entry<String, PendingEdit> entry : entries) {
+                collection.document(entry.getKey()).get(Source.CACHE)
+                        .addOnSuccessListener(doc -> {
+                            if (commit.isComplete() || !doc.getMetadata().hasPendingWrites()) return;
+                            callback.onQueued(entry.getKey());
+                        });
+            }
+        }
+
+        /**
+         * Entri riwayat ringkas: status, waktu server, dan info hanya jika ada.
+         */
+        private static Map<String, Object> historyEntry(PendingEdit edit) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put(RegionMapper.FIELD_STATUS, edit.status.getKey());
+            entry.put(RegionMapper.FIELD_HISTORY_AT, FieldValue.serverTimestamp());
+            if (edit.info != null && !edit.info.isEmpty()) {
+                entry.put(RegionMapper.FIELD_INFO, edit.info);
+            }
+            return entry;
+        }
+    }
+}
@@ -2,22 +2,43 @@ package com.example.projectmagang.managers;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Role user yang sedang login. Role disimpan di memori (volatile) dan hanya
+ * ditulis ke SharedPreferences secara async dengan apply(), sehingga
+ * getRole()/isAdmin() tidak menyentuh disk dan aman dipanggil dari thread mana saja.
+ */
 public class RoleManager {
     private static final String TAG = "RoleManager";
     private static final String PREF_NAME = "UserPrefs";
     private static final String KEY_ROLE = "user_role";
+    private static final String DEFAULT_ROLE = "user";
     private static RoleManager instance;
 
-    private SharedPreferences preferences;
-    private String currentRole;
+    /**
+     * Dipanggil di main thread setiap kali role berubah.
+     */
+    public interface OnRoleChangedListener {
+        void onRoleChanged(String role, boolean isAdmin);
+    }
+
+    private final SharedPreferences preferences;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<OnRoleChangedListener> listeners = new CopyOnWriteArrayList<>();
+    // null sampai dibaca dari disk atau di-set saat login
+    private volatile String currentRole;
 
     private RoleManager(Context context) {
+        // getSharedPreferences() mulai memuat file di background; nilai baru
+        // dibaca saat pertama kali dibutuhkan
         preferences = context.getApplicationContext()
                 .getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-        currentRole = preferences.getString(KEY_ROLE, "user");
-        Log.d(TAG, "RoleManager initialized | Current role: " + currentRole);
     }
 
     public static synchronized RoleManager getInstance(Context context) {
@@ -28,29 +49,77 @@ public class RoleManager {
     }
 
     public void setRole(String role) {
-        String normalizedRole = role != null ? role.toLowerCase() : "user";
-        this.currentRole = normalizedRole;
+        String normalizedRole = role != null ? role.toLowerCase() : DEFAULT_ROLE;
+        String previousRole;
+        synchronized (this) {
+            previousRole = currentRole;
+            currentRole = normalizedRole;
+        }
+        preferences.edit().putString(KEY_ROLE, normalizedRole).apply();
 
-        boolean saved = preferences.edit().putString(KEY_ROLE, normalizedRole).commit();
+        Log.d(TAG, "🔐 Role set: " + normalizedRole + " | isAdmin: " + isAdmin(normalizedRole));
+        if (!normalizedRole.equals(previousRole)) {
+            notifyRoleChanged(normalizedRole);
+        }
+    }
 
-        Log.d(TAG, "🔐 Role set: " + normalizedRole + " | Saved: " + saved + " | isAdmin: " + isAdmin());
+    public String getRole() {
+        String role = currentRole;
+        if (role != null) return role;
 
-        String verifyRole = preferences.getString(KEY_ROLE, "ERROR");
-        Log.d(TAG, "✅ Verified from SharedPrefs: " + verifyRole);
+        synchronized (this) {
+            if (currentRole == null) {
+                // Hanya sekali per proses (sesi yang dipulihkan tanpa login ulang)
+                currentRole = preferences.getString(KEY_ROLE, DEFAULT_ROLE);
+                Log.d(TAG, "RoleManager loaded | Current role: " + currentRole);
+            }
+            return currentRole;
+        }
     }
 
-    public String getRole() {
-        currentRole = preferences.getString(KEY_ROLE, "user");
-        return currentRole;
+    /**
+     * Apakah ada role tersimpan dari sesi sebelumnya. Membaca disk; jangan
+     * dari main thread.
+     */
+    public boolean hasStoredRole() {
+        return preferences.contains(KEY_ROLE);
     }
 
     public boolean isAdmin() {
-        return "admin".equalsIgnoreCase(currentRole);
+        return isAdmin(getRole());
     }
 
     public void clear() {
-        preferences.edit().clear().commit();
-        currentRole = "user";
+        String previousRole;
+        synchronized (this) {
+            previousRole = currentRole;
+            currentRole = DEFAULT_ROLE;
+        }
+        preferences.edit().clear().apply();
         Log.d(TAG, "🗑️ RoleManager cleared");
+        if (!DEFAULT_ROLE.equals(previousRole)) {
+            notifyRoleChanged(DEFAULT_ROLE);
+        }
+    }
+
+    public void addOnRoleChangedListener(OnRoleChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeOnRoleChangedListener(OnRoleChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyRoleChanged(String role) {
+        boolean admin = isAdmin(role);
+        mainHandler.post(() -> {
+            for (OnRoleChangedListener listener : listeners) {
+                listener.onRoleChanged(role, admin);
+            }
+        });
+    }
+
+    private static boolean isAdmin(String role) {
+        return "admin".equalsIgnoreCase(role);
     }
-}
\ No newline at end of file
+}
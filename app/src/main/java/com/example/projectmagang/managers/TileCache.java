@@ -0,0 +1,337 @@
+package com.example.projectmagang.managers;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sumber tile peta untuk WebView. Urutan pencarian:
+ * <ol>
+ *     <li>cache disk LRU di {@code cacheDir/tiles} (dibatasi {@link #MAX_CACHE_BYTES})</li>
+ *     <li>file MBTiles bawaan untuk area Kota Palu ({@code assets/palu.mbtiles}, opsional)</li>
+ *     <li>server tile OpenStreetMap; hasilnya disimpan ke cache disk</li>
+ * </ol>
+ * Tile dari MBTiles tidak masuk cache disk, jadi area Palu tetap tersedia
+ * offline walau cache sudah di-evict.
+ *
+ * <p>Tanpa jaringan, tile yang tidak ada di cache langsung dianggap kosong:
+ * download tidak dicoba sama sekali saat tidak ada network tervalidasi, dan
+ * setelah download gagal jaringan dilewati selama {@link #NETWORK_COOLDOWN_MS}
+ * supaya thread IO WebView tidak tertahan timeout per tile.</p>
+ *
+ * <p>Semua method blocking; dipanggil dari thread IO WebView
+ * (shouldInterceptRequest), bukan main thread.</p>
+ */
+public class TileCache {
+    private static final String TAG = "TileCache";
+    private static final String TILE_DIR = "tiles";
+    private static final String MBTILES_ASSET = "palu.mbtiles";
+    private static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final String TILE_SERVER = "https://tile.openstreetmap.org/";
+    // Kebijakan tile OSM mewajibkan User-Agent yang mengidentifikasi aplikasi
+    private static final String USER_AGENT = "ProjectMagang/1.0 (Android; com.example.projectmagang)";
+    private static final int CONNECT_TIMEOUT_MS = 3_000;
+    private static final int READ_TIMEOUT_MS = 5_000;
+    private static final long NETWORK_COOLDOWN_MS = 15_000;
+    private static final int MAX_ZOOM = 19;
+
+    private final Context appContext;
+    private final File tileDir;
+
+    // key "z/x/y" -> ukuran file; access order = urutan LRU
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes = 0;
+    private boolean indexed = false;
+
+    private SQLiteDatabase mbTiles;
+    private boolean mbTilesOpened = false;
+
+    private final ConnectivityManager connectivityManager;
+    // Uptime (SystemClock) sampai kapan download dilewati setelah gagal
+    private volatile long networkRetryAt = 0;
+
+    public TileCache(Context context) {
+        appContext = context.getApplicationContext();
+        tileDir = new File(appContext.getCacheDir(), TILE_DIR);
+        connectivityManager = appContext.getSystemService(ConnectivityManager.class);
+    }
+
+    /**
+     * @return byte PNG tile, atau null jika tidak ada di cache/MBTiles dan gagal diunduh
+     */
+    public byte[] getTile(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM || x < 0 || y < 0 || x >= (1 << z) || y >= (1 << z)) {
+            return null;
+        }
+
+        String key = z + "/" + x + "/" + y;
+        byte[] tile = readDisk(key);
+        if (tile != null) return tile;
+
+        tile = readMbTiles(z, x, y);
+        if (tile != null) return tile;
+
+        tile = download(z, x, y);
+        if (tile != null) {
+            writeDisk(key, tile);
+        }
+        return tile;
+    }
+
+    public synchronized void clear() {
+        ensureIndexed();
+        for (String key : new ArrayList<>(entries.keySet())) {
+            deleteEntry(key);
+        }
+        Log.d(TAG, "🗑️ Tile cache cleared");
+    }
+
+    // ==================== Disk LRU ====================
+
+    private byte[] readDisk(String key) {
+        File file;
+        synchronized (this) {
+            ensureIndexed();
+            if (entries.get(key) == null) return null; // get() juga memperbarui urutan LRU
+            file = fileFor(key);
+        }
+
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] data = readFully(in);
+            // Simpan urutan LRU antar sesi lewat mtime
+            file.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (FileNotFoundException e) {
+            // Ter-evict oleh thread lain di antara lookup dan baca
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Failed to read tile " + key, e);
+            return null;
+        }
+    }
+
+    private synchronized void writeDisk(String key, byte[] data) {
+        ensureIndexed();
+        File file = fileFor(key);
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            Log.w(TAG, "⚠️ Cannot create " + parent);
+            return;
+        }
+
+        File temp = new File(parent, file.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(data);
+        } catch (IOException e) {
+            Log.w(TAG, "⚠️ Failed to write tile " + key, e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return;
+        }
+
+        Long previous = entries.put(key, (long) data.length);
+        totalBytes += data.length - (previous != null ? previous : 0);
+        trimToSize();
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > MAX_CACHE_BYTES && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            fileFor(eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void deleteEntry(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            fileFor(key).delete();
+            totalBytes -= size;
+        }
+    }
+
+    /**
+     * Bangun index dari isi folder sekali per proses, diurutkan dari mtime
+     * terlama supaya eviction melanjutkan urutan LRU sesi sebelumnya.
+     */
+    private void ensureIndexed() {
+        if (indexed) return;
+        indexed = true;
+
+        List<File> files = new ArrayList<>();
+        collectTiles(tileDir, files);
+        files.sort((a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+
+        String root = tileDir.getAbsolutePath() + File.separator;
+        for (File file : files) {
+            String key = file.getAbsolutePath().substring(root.length())
+                    .replace(File.separatorChar, '/');
+            key = key.substring(0, key.length() - ".png".length());
+            entries.put(key, file.length());
+            totalBytes += file.length();
+        }
+        Log.d(TAG, "📦 Indexed " + entries.size() + " cached tiles (" + totalBytes / 1024 + " KB)");
+        trimToSize();
+    }
+
+    private static void collectTiles(File dir, List<File> out) {
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectTiles(child, out);
+            } else if (child.getName().endsWith(".png")) {
+                out.add(child);
+            } else {
+                // Sisa .tmp dari proses yang mati saat menulis
+                child.delete();
+            }
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(tileDir, key + ".png");
+    }
+
+    // ==================== MBTiles ====================
+
+    private byte[] readMbTiles(int z, int x, int y) {
+        SQLiteDatabase db = openMbTiles();
+        if (db == null) return null;
+
+        // MBTiles memakai skema TMS: baris dihitung dari bawah
+        int tmsRow = (1 << z) - 1 - y;
+        try (Cursor cursor = db.rawQuery(
+                "SELECT tile_data FROM tiles WHERE zoom_level = ? AND tile_column = ? AND tile_row = ?",
+                new String[]{String.valueOf(z), String.valueOf(x), String.valueOf(tmsRow)})) {
+            return cursor.moveToFirst() ? cursor.getBlob(0) : null;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "⚠️ MBTiles query failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * SQLite tidak bisa membuka file langsung dari assets, jadi MBTiles disalin
+     * sekali ke folder database aplikasi.
+     */
+    private synchronized SQLiteDatabase openMbTiles() {
+        if (mbTilesOpened) return mbTiles;
+        mbTilesOpened = true;
+
+        File target = appContext.getDatabasePath(MBTILES_ASSET);
+        try {
+            if (!target.exists()) {
+                File parent = target.getParentFile();
+                if (!parent.isDirectory() && !parent.mkdirs()) {
+                    throw new IOException("Cannot create " + parent);
+                }
+                File temp = new File(parent, MBTILES_ASSET + ".tmp");
+                try (InputStream in = appContext.getAssets().open(MBTILES_ASSET);
+                     OutputStream out = new FileOutputStream(temp)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                if (!temp.renameTo(target)) {
+                    throw new IOException("Cannot move " + temp + " to " + target);
+                }
+            }
+
+            mbTiles = SQLiteDatabase.openDatabase(target.getPath(), null,
+                    SQLiteDatabase.OPEN_READONLY | SQLiteDatabase.NO_LOCALIZED_COLLATORS);
+            Log.d(TAG, "✅ MBTiles seed opened");
+        } catch (FileNotFoundException e) {
+            Log.d(TAG, "No MBTiles seed bundled, using disk cache + network only");
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "❌ Failed to open MBTiles seed", e);
+        }
+        return mbTiles;
+    }
+
+    // ==================== Network ====================
+
+    /**
+     * Cek murah sebelum membuka koneksi: ada network default yang sudah
+     * tervalidasi punya akses internet, dan tidak sedang cooldown.
+     */
+    private boolean isNetworkUsable() {
+        if (SystemClock.elapsedRealtime() < networkRetryAt) return false;
+        if (connectivityManager == null) return true;
+
+        Network network = connectivityManager.getActiveNetwork();
+        NetworkCapabilities capabilities = network != null
+                ? connectivityManager.getNetworkCapabilities(network)
+                : null;
+        return capabilities != null
+                && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+    }
+
+    private byte[] download(int z, int x, int y) {
+        if (!isNetworkUsable()) return null;
+
+        HttpURLConnection connection = null;
+        try {
+            URL url = new URL(TILE_SERVER + z + "/" + x + "/" + y + ".png");
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestProperty("User-Agent", USER_AGENT);
+
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                Log.w(TAG, "⚠️ Tile " + z + "/" + x + "/" + y + " HTTP " + connection.getResponseCode());
+                return null;
+            }
+            try (InputStream in = connection.getInputStream()) {
+                return readFully(in);
+            }
+        } catch (IOException e) {
+            // Offline/jaringan buruk: tile kosong, tile berikutnya tidak ikut menunggu timeout
+            networkRetryAt = SystemClock.elapsedRealtime() + NETWORK_COOLDOWN_MS;
+            Log.d(TAG, "📴 Tile download failed, skipping network for "
+                    + NETWORK_COOLDOWN_MS / 1000 + " s");
+            return null;
+        } finally {
+            if (connection != null) connection.disconnect();
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        byte[] buffer = new byte[8 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -2,64 +2,65 @@ package com.example.projectmagang.models;
 
 import com.google.firebase.Timestamp;
 
-public class Region {
-    private String id;
-    private String name;
-    private String status;
-    private String info;
-    private Timestamp lastUpdate;
+import java.util.Objects;
 
-    public Region() {
-        // Empty constructor required for Firestore
-    }
+/**
+ * Data region yang immutable. Dibuat oleh RegionMapper di thread decode lalu
+ * dibagikan ke UI thread tanpa sinkronisasi tambahan.
+ */
+public final class Region {
+    private final String id;
+    private final String name;
+    private final String status;
+    private final RegionStatus statusType;
+    private final String info;
+    private final Timestamp lastUpdate;
+    // true selama edit lokal belum dikonfirmasi server (optimistic / hasPendingWrites)
+    private final boolean pendingWrite;
 
     public Region(String id, String name, String status, String info, Timestamp lastUpdate) {
+        this(id, name, status, info, lastUpdate, false);
+    }
+
+    public Region(String id, String name, String status, String info, Timestamp lastUpdate,
+                  boolean pendingWrite) {
         this.id = id;
         this.name = name;
         this.status = status;
+        this.statusType = RegionStatus.parse(status);
         this.info = info;
         this.lastUpdate = lastUpdate;
+        this.pendingWrite = pendingWrite;
     }
 
     // Getters
     public String getId() { return id; }
     public String getName() { return name; }
     public String getStatus() { return status; }
+    public RegionStatus getStatusType() { return statusType; }
     public String getInfo() { return info; }
     public Timestamp getLastUpdate() { return lastUpdate; }
+    public boolean isPendingWrite() { return pendingWrite; }
 
-    // Setters
-    public void setId(String id) { this.id = id; }
-    public void setName(String name) { this.name = name; }
-    public void setStatus(String status) { this.status = status; }
-    public void setInfo(String info) { this.info = info; }
-    public void setLastUpdate(Timestamp lastUpdate) { this.lastUpdate = lastUpdate; }
+    // Compare fields that are shown to the user (id is compared by caller)
+    public boolean hasSameContent(Region other) {
+        if (other == null) return false;
+        return Objects.equals(name, other.name)
+                && Objects.equals(status, other.status)
+                && Objects.equals(info, other.info)
+                && Objects.equals(lastUpdate, other.lastUpdate)
+                && pendingWrite == other.pendingWrite;
+    }
 
     // Get color based on status
     public int getColorResId() {
-        switch (status.toLowerCase()) {
-            case "normal":
-                return android.R.color.holo_green_light;
-            case "gangguan":
-                return android.R.color.holo_red_light;
-            case "dikerjakan":
-                return android.R.color.holo_orange_light;
-            default:
-                return android.R.color.darker_gray;
-        }
+        return statusType.getColorResId();
     }
 
     // Get status display text
     public String getStatusDisplay() {
-        switch (status.toLowerCase()) {
-            case "normal":
-                return "🟩 Normal";
-            case "gangguan":
-                return "🟥 Gangguan";
-            case "dikerjakan":
-                return "🟧 Sedang Dikerjakan";
-            default:
-                return status;
-        }
+        // Status yang tidak dikenal tetap ditampilkan apa adanya
+        if (statusType == RegionStatus.UNKNOWN && status != null) return status;
+        return statusType.getDisplay();
     }
 }
\ No newline at end of file
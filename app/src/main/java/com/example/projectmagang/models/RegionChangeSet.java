@@ -0,0 +1,60 @@
+package com.example.projectmagang.models;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kumpulan perubahan region (added / modified / removed) dari satu snapshot,
+ * dikunci berdasarkan region id.
+ */
+public class RegionChangeSet {
+    private final Map<String, Region> added = new LinkedHashMap<>();
+    private final Map<String, Region> modified = new LinkedHashMap<>();
+    private final Set<String> removed = new LinkedHashSet<>();
+
+    public void add(Region region) {
+        added.put(region.getId(), region);
+    }
+
+    public void modify(Region region) {
+        modified.put(region.getId(), region);
+    }
+
+    public void remove(String regionId) {
+        removed.add(regionId);
+    }
+
+    // Getters
+    public Collection<Region> getAdded() {
+        return Collections.unmodifiableCollection(added.values());
+    }
+
+    public Collection<Region> getModified() {
+        return Collections.unmodifiableCollection(modified.values());
+    }
+
+    public Set<String> getRemoved() {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && modified.isEmpty() && removed.isEmpty();
+    }
+
+    public int size() {
+        return added.size() + modified.size() + removed.size();
+    }
+
+    @Override
+    public String toString() {
+        return "RegionChangeSet{" +
+                "added=" + added.size() +
+                ", modified=" + modified.size() +
+                ", removed=" + removed.size() +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.projectmagang.models;
+
+/**
+ * Satu perubahan status region (dokumen di subcollection
+ * {@code region/{id}/history}). Waktu disimpan sebagai epoch millis.
+ */
+public class RegionHistoryEntry {
+    private final RegionStatus status;
+    private final String info;
+    private final long timeMillis;
+
+    public RegionHistoryEntry(RegionStatus status, String info, long timeMillis) {
+        this.status = status;
+        this.info = info != null ? info : "";
+        this.timeMillis = timeMillis;
+    }
+
+    public RegionStatus getStatus() {
+        return status;
+    }
+
+    public String getInfo() {
+        return info;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+}
@@ -19,36 +19,31 @@ public class RegionStatistics {
     }
 
     /**
-     * Calculate statistics from list of regions
+     * Hitung statistik dengan scan list region. Dipakai sebagai fallback
+     * offline; saat online angka datang dari RegionRollup atau count().
      */
     public static RegionStatistics calculate(List<Region> regions) {
-        RegionStatistics stats = new RegionStatistics();
-
-        if (regions == null || regions.isEmpty()) {
-            return stats;
-        }
-
-        stats.totalRegions = regions.size();
-
-        for (Region region : regions) {
-            String status = region.getStatus();
-            if (status == null) {
-                continue;
-            }
-
-            switch (status.toLowerCase()) {
-                case "normal":
-                    stats.normalCount++;
-                    break;
-                case "gangguan":
-                    stats.gangguanCount++;
-                    break;
-                case "dikerjakan":
-                    stats.dikerjakanCount++;
-                    break;
+        int[] counts = new int[RegionStatus.count()];
+        if (regions != null) {
+            // Status sudah di-parse saat decode; hitung per ordinal tanpa switch string
+            for (Region region : regions) {
+                counts[region.getStatusType().ordinal()]++;
             }
         }
+        return fromCounts(counts);
+    }
 
+    /**
+     * Buat statistik dari hitungan per {@link RegionStatus#ordinal()} (mis. dari RegionRollup)
+     */
+    public static RegionStatistics fromCounts(int[] counts) {
+        RegionStatistics stats = new RegionStatistics();
+        for (int count : counts) {
+            stats.totalRegions += count;
+        }
+        stats.normalCount = counts[RegionStatus.NORMAL.ordinal()];
+        stats.gangguanCount = counts[RegionStatus.GANGGUAN.ordinal()];
+        stats.dikerjakanCount = counts[RegionStatus.DIKERJAKAN.ordinal()];
         return stats;
     }
 
@@ -0,0 +1,134 @@
+package com.example.projectmagang.models;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Status jaringan region. Di-parse sekali saat decode (lihat {@link Region}),
+ * sehingga bind list, statistik dan peta tidak perlu toLowerCase + switch
+ * string lagi. Palet warna yang sama juga dikirim ke map.html.
+ */
+public enum RegionStatus {
+    NORMAL("normal", "🟩", "Normal", android.R.color.holo_green_light, "#4CAF50"),
+    GANGGUAN("gangguan", "🟥", "Gangguan", android.R.color.holo_red_light, "#F44336"),
+    DIKERJAKAN("dikerjakan", "🟧", "Sedang Dikerjakan", android.R.color.holo_orange_light, "#FF9800"),
+    UNKNOWN("unknown", "⬜", "Tidak Diketahui", android.R.color.darker_gray, "#757575");
+
+    // values() membuat array baru setiap dipanggil
+    private static final RegionStatus[] VALUES = values();
+
+    private final String key;
+    private final String marker;
+    private final String label;
+    private final int colorResId;
+    private final String colorHex;
+    private final String display;
+
+    RegionStatus(String key, String marker, String label, int colorResId, String colorHex) {
+        this.key = key;
+        this.marker = marker;
+        this.label = label;
+        this.colorResId = colorResId;
+        this.colorHex = colorHex;
+        this.display = marker + " " + label;
+    }
+
+    /**
+     * Parse nilai field status Firestore (tidak case-sensitive, tanpa alokasi).
+     *
+     * @return status, atau {@link #UNKNOWN} untuk null / nilai yang tidak dikenal
+     */
+    public static RegionStatus parse(String raw) {
+        if (raw == null) return UNKNOWN;
+        for (RegionStatus status : VALUES) {
+            if (status != UNKNOWN && status.key.equalsIgnoreCase(raw)) return status;
+        }
+        return UNKNOWN;
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Status yang butuh perhatian operator (mode "hanya gangguan").
+     */
+    public boolean isIssue() {
+        return this == GANGGUAN || this == DIKERJAKAN;
+    }
+
+    /**
+     * Nilai untuk {@code whereIn("status", ...)}. Query Firestore case-sensitive,
+     * sedangkan data lama bisa ditulis dengan huruf besar, jadi variannya ikut
+     * dimasukkan (whereIn menerima sampai 30 nilai).
+     */
+    public static List<String> issueQueryValues() {
+        List<String> values = new ArrayList<>();
+        for (RegionStatus status : VALUES) {
+            if (status.isIssue()) values.addAll(status.queryValues());
+        }
+        return values;
+    }
+
+    /**
+     * Varian penulisan status ini untuk query {@code whereIn} (lihat
+     * {@link #issueQueryValues()}).
+     */
+    public List<String> queryValues() {
+        List<String> values = new ArrayList<>(3);
+        values.add(key);
+        values.add(Character.toUpperCase(key.charAt(0)) + key.substring(1));
+        values.add(key.toUpperCase(Locale.ROOT));
+        return values;
+    }
+
+    /** Nilai yang disimpan di Firestore dan dipakai di map.html. */
+    public String getKey() {
+        return key;
+    }
+
+    public String getMarker() {
+        return marker;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /** Marker + label, mis. "🟥 Gangguan". */
+    public String getDisplay() {
+        return display;
+    }
+
+    public int getColorResId() {
+        return colorResId;
+    }
+
+    public String getColorHex() {
+        return colorHex;
+    }
+
+    /**
+     * Palet untuk map.html: {key: {color, label, issue}}.
+     */
+    public static JSONObject toPaletteJson() {
+        JSONObject palette = new JSONObject();
+        try {
+            for (RegionStatus status : VALUES) {
+                JSONObject entry = new JSONObject();
+                entry.put("color", status.colorHex);
+                entry.put("label", status.display);
+                entry.put("issue", status.isIssue());
+                palette.put(status.key, entry);
+            }
+        } catch (JSONException e) {
+            // Key dan value selalu string non-null
+            throw new IllegalStateException(e);
+        }
+        return palette;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.projectmagang.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Riwayat status satu region dalam rentang waktu, beserta periode gangguan
+ * yang diturunkan darinya.
+ *
+ * <p>Gangguan dimulai saat status berubah dari normal ke gangguan/dikerjakan
+ * dan selesai saat kembali normal. MTTR = rata-rata durasi gangguan yang
+ * sudah selesai dalam rentang.</p>
+ */
+public class RegionTimeline {
+
+    /**
+     * Satu periode gangguan; {@code ongoing} jika belum kembali normal di akhir rentang.
+     */
+    public static final class Outage {
+        private final long startMillis;
+        private final long endMillis;
+        private final boolean ongoing;
+
+        Outage(long startMillis, long endMillis, boolean ongoing) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.ongoing = ongoing;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        public long getEndMillis() {
+            return endMillis;
+        }
+
+        public long getDurationMillis() {
+            return endMillis - startMillis;
+        }
+
+        public boolean isOngoing() {
+            return ongoing;
+        }
+    }
+
+    private final long fromMillis;
+    private final long toMillis;
+    private final List<RegionHistoryEntry> entries;
+    private final List<Outage> outages;
+
+    private RegionTimeline(long fromMillis, long toMillis, List<RegionHistoryEntry> entries,
+                           List<Outage> outages) {
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        this.entries = Collections.unmodifiableList(entries);
+        this.outages = Collections.unmodifiableList(outages);
+    }
+
+    /**
+     * @param initialStatus status yang berlaku di awal rentang (entri terakhir
+     *                      sebelum {@code fromMillis}), atau null jika tidak ada
+     * @param entries       entri dalam rentang, urut waktu naik
+     */
+    public static RegionTimeline build(RegionStatus initialStatus, List<RegionHistoryEntry> entries,
+                                       long fromMillis, long toMillis) {
+        List<Outage> outages = new ArrayList<>();
+        long outageStart = initialStatus != null && initialStatus.isIssue() ? fromMillis : -1;
+
+        for (RegionHistoryEntry entry : entries) {
+            boolean issue = entry.getStatus().isIssue();
+            if (issue && outageStart < 0) {
+                outageStart = entry.getTimeMillis();
+            } else if (entry.getStatus() == RegionStatus.NORMAL && outageStart >= 0) {
+                outages.add(new Outage(outageStart, entry.getTimeMillis(), false));
+                outageStart = -1;
+            }
+        }
+        if (outageStart >= 0) {
+            outages.add(new Outage(outageStart, toMillis, true));
+        }
+
+        return new RegionTimeline(fromMillis, toMillis, new ArrayList<>(entries), outages);
+    }
+
+    public long getFromMillis() {
+        return fromMillis;
+    }
+
+    public long getToMillis() {
+        return toMillis;
+    }
+
+    public List<RegionHistoryEntry> getEntries() {
+        return entries;
+    }
+
+    public List<Outage> getOutages() {
+        return outages;
+    }
+
+    /**
+     * Total durasi gangguan dalam rentang, termasuk yang masih berlangsung.
+     */
+    public long getTotalOutageMillis() {
+        long total = 0;
+        for (Outage outage : outages) {
+            total += outage.getDurationMillis();
+        }
+        return total;
+    }
+
+    /**
+     * @return rata-rata waktu pemulihan, atau -1 jika belum ada gangguan yang selesai
+     */
+    public long getMttrMillis() {
+        long total = 0;
+        int resolved = 0;
+        for (Outage outage : outages) {
+            if (outage.isOngoing()) continue;
+            total += outage.getDurationMillis();
+            resolved++;
+        }
+        return resolved > 0 ? total / resolved : -1;
+    }
+}
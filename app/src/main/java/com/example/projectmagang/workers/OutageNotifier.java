@@ -0,0 +1,106 @@
+package com.example.projectmagang.workers;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
+
+import com.example.projectmagang.R;
+import com.example.projectmagang.activities.LoginActivity;
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionStatus;
+
+import java.util.List;
+
+/**
+ * Notifikasi gangguan baru dari {@link RegionSyncWorker}. Satu notifikasi per
+ * kelurahan (tag = id region, jadi gangguan ulang menimpa yang lama) dalam
+ * satu grup, plus notifikasi ringkasan untuk grup tersebut.
+ */
+final class OutageNotifier {
+    private static final String TAG = "OutageNotifier";
+    private static final String CHANNEL_ID = "outage_alerts";
+    private static final String GROUP_KEY = "com.example.projectmagang.OUTAGES";
+    private static final int NOTIFICATION_ID_OUTAGE = 1;
+    private static final int NOTIFICATION_ID_SUMMARY = 2;
+
+    private OutageNotifier() {
+    }
+
+    static void notifyNewOutages(Context context, List<Region> regions) {
+        if (regions.isEmpty()) return;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.d(TAG, "Notification permission not granted, skipping " + regions.size() + " alerts");
+            return;
+        }
+
+        createChannel(context);
+        NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+        PendingIntent contentIntent = createContentIntent(context);
+        NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle();
+
+        for (Region region : regions) {
+            String name = region.getName() != null ? region.getName() : region.getId();
+            String info = region.getInfo();
+            Notification notification = new NotificationCompat.Builder(context, CHANNEL_ID)
+                    .setSmallIcon(R.drawable.ic_status_gangguan)
+                    .setContentTitle(RegionStatus.GANGGUAN.getMarker() + " " + name)
+                    .setContentText(info != null && !info.isEmpty()
+                            ? info
+                            : "Status berubah menjadi " + RegionStatus.GANGGUAN.getLabel())
+                    .setCategory(NotificationCompat.CATEGORY_STATUS)
+                    .setContentIntent(contentIntent)
+                    .setAutoCancel(true)
+                    .setGroup(GROUP_KEY)
+                    .build();
+            manager.notify(region.getId(), NOTIFICATION_ID_OUTAGE, notification);
+            inbox.addLine(name);
+        }
+
+        String title = "⚠️ " + regions.size() + " kelurahan mengalami gangguan";
+        Notification summary = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_status_gangguan)
+                .setContentTitle(title)
+                .setStyle(inbox.setBigContentTitle(title))
+                .setContentIntent(contentIntent)
+                .setAutoCancel(true)
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .build();
+        manager.notify(NOTIFICATION_ID_SUMMARY, summary);
+        Log.d(TAG, "🔔 Posted " + regions.size() + " outage notifications");
+    }
+
+    static void cancelAll(Context context) {
+        NotificationManagerCompat.from(context).cancelAll();
+    }
+
+    private static void createChannel(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Gangguan baru",
+                NotificationManager.IMPORTANCE_DEFAULT);
+        channel.setDescription("Kelurahan yang baru berstatus gangguan");
+        // Tidak berbuat apa-apa jika channel sudah ada
+        context.getSystemService(NotificationManager.class).createNotificationChannel(channel);
+    }
+
+    private static PendingIntent createContentIntent(Context context) {
+        // LoginActivity memulihkan sesi lalu membuka MainActivity
+        Intent intent = new Intent(context, LoginActivity.class)
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        return PendingIntent.getActivity(context, 0, intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.projectmagang.workers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.projectmagang.managers.FirebaseManager;
+import com.example.projectmagang.managers.RegionCache;
+import com.example.projectmagang.managers.RegionMapper;
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionStatus;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sync region di background saat aplikasi tidak dibuka: ambil hanya region
+ * sesudah high-water mark tersimpan (query get() per halaman, tanpa listener
+ * yang menahan koneksi), gabungkan ke {@link RegionCache}, lalu tampilkan
+ * notifikasi untuk kelurahan yang baru berstatus gangguan.
+ *
+ * <p>High-water mark = (lastUpdate, id dokumen) dari region terakhir yang
+ * dibaca, jadi run yang berhenti di tengah sekelompok region dengan
+ * timestamp sama melanjutkan dari region berikutnya, bukan melompatinya.</p>
+ *
+ * <p>Dijadwalkan periodik oleh WorkManager dengan syarat jaringan tersedia
+ * dan baterai tidak lemah, sehingga sistem bisa menggabungkannya dengan job
+ * lain.</p>
+ */
+public class RegionSyncWorker extends Worker {
+    private static final String TAG = "RegionSyncWorker";
+    private static final String WORK_NAME = "region-sync";
+    private static final long SYNC_INTERVAL_MINUTES = 30;
+    private static final String PREF_NAME = "region_sync";
+    private static final String KEY_CURSOR_SECONDS = "cursor_seconds";
+    private static final String KEY_CURSOR_NANOS = "cursor_nanos";
+    private static final String KEY_CURSOR_DOCUMENT = "cursor_document";
+    private static final int PAGE_SIZE = 200;
+    // Sisa perubahan menyusul di run berikutnya, mulai dari region terakhir yang dibaca
+    private static final int MAX_PAGES = 10;
+    private static final long QUERY_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Satu dokumen hasil query: posisi cursor-nya dan region hasil decode
+     * (null jika dokumen tidak valid; cursor tetap maju melewatinya).
+     */
+    static final class SyncedDocument {
+        final String id;
+        final Timestamp lastUpdate;
+        final Region region;
+
+        SyncedDocument(String id, Timestamp lastUpdate, Region region) {
+            this.id = id;
+            this.lastUpdate = lastUpdate;
+            this.region = region;
+        }
+    }
+
+    /**
+     * Satu halaman region sesudah cursor, urut (lastUpdate, id dokumen);
+     * lihat {@link FirebaseManager#fetchRegionsUpdatedAfter}.
+     */
+    interface PageSource {
+        List<SyncedDocument> fetch(Timestamp cursor, String cursorDocument, int limit)
+                throws ExecutionException, TimeoutException, InterruptedException;
+    }
+
+    /**
+     * Hasil satu run: posisi cursor baru, jumlah region yang berubah, dan
+     * kelurahan yang baru berstatus gangguan.
+     */
+    static final class SyncResult {
+        Timestamp cursor;
+        String cursorDocument;
+        int changed;
+        final List<Region> newOutages = new ArrayList<>();
+    }
+
+    public RegionSyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Jadwalkan sync periodik; aman dipanggil berulang kali (KEEP).
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                RegionSyncWorker.class, SYNC_INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 1, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Hentikan sync dan lupakan cursor serta notifikasi milik user ini (logout).
+     */
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME);
+        context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE).edit().clear().apply();
+        OutageNotifier.cancelAll(context);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        FirebaseManager firebaseManager = FirebaseManager.getInstance();
+        if (firebaseManager.getCurrentUser() == null) {
+            Log.d(TAG, "No signed-in user, skipping sync");
+            return Result.success();
+        }
+
+        Context context = getApplicationContext();
+        RegionCache cache = new RegionCache(context);
+        Map<String, Region> known = new LinkedHashMap<>();
+        Timestamp newestCached = null;
+        for (Region region : cache.load()) {
+            known.put(region.getId(), region);
+            newestCached = later(newestCached, region.getLastUpdate());
+        }
+
+        SharedPreferences preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        Timestamp cursor;
+        String cursorDocument;
+        if (preferences.contains(KEY_CURSOR_SECONDS)) {
+            cursor = new Timestamp(preferences.getLong(KEY_CURSOR_SECONDS, 0),
+                    preferences.getInt(KEY_CURSOR_NANOS, 0));
+            cursorDocument = preferences.getString(KEY_CURSOR_DOCUMENT, null);
+        } else {
+            // Run pertama: mulai dari data yang sudah pernah dilihat user,
+            // supaya tidak ada notifikasi untuk gangguan lama
+            cursor = newestCached != null ? newestCached : Timestamp.now();
+            cursorDocument = null;
+        }
+
+        PageSource source = (after, afterDocument, limit) -> {
+            QuerySnapshot snapshot = Tasks.await(
+                    firebaseManager.fetchRegionsUpdatedAfter(after, afterDocument, limit),
+                    QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            List<SyncedDocument> documents = new ArrayList<>(snapshot.size());
+            for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                documents.add(new SyncedDocument(doc.getId(), RegionMapper.lastUpdateOf(doc),
+                        RegionMapper.fromDocument(doc)));
+            }
+            return documents;
+        };
+
+        SyncResult result;
+        try {
+            result = pull(source, known, cursor, cursorDocument, PAGE_SIZE, MAX_PAGES, this::isStopped);
+        } catch (ExecutionException | TimeoutException e) {
+            Log.w(TAG, "⚠️ Sync failed, retrying later", e);
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+
+        if (result.changed > 0) {
+            cache.save(new ArrayList<>(known.values()));
+        }
+        // commit(): worker sudah di background thread, dan proses bisa segera dihentikan
+        preferences.edit()
+                .putLong(KEY_CURSOR_SECONDS, result.cursor.getSeconds())
+                .putInt(KEY_CURSOR_NANOS, result.cursor.getNanoseconds())
+                .putString(KEY_CURSOR_DOCUMENT, result.cursorDocument)
+                .commit();
+        OutageNotifier.notifyNewOutages(context, result.newOutages);
+
+        Log.d(TAG, "✅ Synced " + result.changed + " changed regions | New outages: "
+                + result.newOutages.size());
+        return Result.success();
+    }
+
+    /**
+     * Baca halaman demi halaman mulai dari cursor dan gabungkan ke {@code known}.
+     * Berhenti setelah {@code maxPages} halaman; sisanya menyusul di run
+     * berikutnya mulai dari cursor yang dikembalikan.
+     */
+    static SyncResult pull(PageSource source, Map<String, Region> known, Timestamp cursor,
+                           String cursorDocument, int pageSize, int maxPages,
+                           BooleanSupplier isStopped)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        SyncResult result = new SyncResult();
+        result.cursor = cursor;
+        result.cursorDocument = cursorDocument;
+
+        for (int page = 0; page < maxPages && !isStopped.getAsBoolean(); page++) {
+            List<SyncedDocument> documents =
+                    source.fetch(result.cursor, result.cursorDocument, pageSize);
+
+            for (SyncedDocument doc : documents) {
+                Region region = doc.region;
+                if (region == null) continue;
+
+                Region previous = known.put(region.getId(), region);
+                if (region.getStatusType() == RegionStatus.GANGGUAN
+                        && (previous == null || previous.getStatusType() != RegionStatus.GANGGUAN)) {
+                    result.newOutages.add(region);
+                }
+                result.changed++;
+            }
+
+            if (!documents.isEmpty()) {
+                // Hasil urut (lastUpdate, id): dokumen terakhir = posisi cursor baru
+                SyncedDocument last = documents.get(documents.size() - 1);
+                if (last.lastUpdate != null) {
+                    result.cursor = last.lastUpdate;
+                    result.cursorDocument = last.id;
+                }
+            }
+            if (documents.size() < pageSize) break;
+        }
+        return result;
+    }
+
+    private static Timestamp later(Timestamp a, Timestamp b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
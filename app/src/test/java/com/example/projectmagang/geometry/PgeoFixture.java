@@ -0,0 +1,108 @@
+package com.example.projectmagang.geometry;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Penulis .pgeo kecil untuk test, mengikuti layout yang didokumentasikan di
+ * GeoJsonEncoder (buildSrc) tanpa bergantung pada Groovy/GeoJSON.
+ */
+public final class PgeoFixture {
+
+    /**
+     * Satu feature; {@code polygons[p][r]} = ring berselang-seling x,y
+     * terkuantisasi (tanpa titik penutup).
+     */
+    public static final class Feature {
+        final String id;
+        final String name;
+        final int[][][] polygons;
+
+        public Feature(String id, String name, int[][][] polygons) {
+            this.id = id;
+            this.name = name;
+            this.polygons = polygons;
+        }
+    }
+
+    private PgeoFixture() {
+    }
+
+    public static Feature rect(String id, int minX, int minY, int maxX, int maxY) {
+        return new Feature(id, id, new int[][][]{{ring(minX, minY, maxX, maxY)}});
+    }
+
+    public static int[] ring(int minX, int minY, int maxX, int maxY) {
+        return new int[]{minX, minY, maxX, minY, maxX, maxY, minX, maxY};
+    }
+
+    public static byte[] encode(int scale, Feature... features) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('P');
+        out.write('G');
+        out.write('E');
+        out.write('O');
+        out.write(1);
+        writeVarint(out, scale);
+        writeVarint(out, features.length);
+
+        for (Feature feature : features) {
+            writeString(out, feature.id);
+            writeString(out, feature.name);
+            writeString(out, "normal");
+            writeString(out, "");
+
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int[][] rings : feature.polygons) {
+                for (int[] ring : rings) {
+                    for (int i = 0; i < ring.length; i += 2) {
+                        minX = Math.min(minX, ring[i]);
+                        minY = Math.min(minY, ring[i + 1]);
+                        maxX = Math.max(maxX, ring[i]);
+                        maxY = Math.max(maxY, ring[i + 1]);
+                    }
+                }
+            }
+            writeZigzag(out, minX);
+            writeZigzag(out, minY);
+            writeZigzag(out, maxX);
+            writeZigzag(out, maxY);
+
+            writeVarint(out, feature.polygons.length);
+            for (int[][] rings : feature.polygons) {
+                writeVarint(out, rings.length);
+                for (int[] ring : rings) {
+                    writeVarint(out, ring.length / 2);
+                    long x = minX;
+                    long y = minY;
+                    for (int i = 0; i < ring.length; i += 2) {
+                        writeZigzag(out, ring[i] - x);
+                        writeZigzag(out, ring[i + 1] - y);
+                        x = ring[i];
+                        y = ring[i + 1];
+                    }
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeZigzag(ByteArrayOutputStream out, long value) {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
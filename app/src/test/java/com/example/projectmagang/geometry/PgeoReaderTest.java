@@ -0,0 +1,69 @@
+package com.example.projectmagang.geometry;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PgeoReaderTest {
+    private static final int SCALE = 1_000_000;
+
+    @Test
+    public void roundTrip_preservesShapesExactly() throws IOException {
+        // Koordinat sekitar Palu: x besar (varint multi-byte), y negatif (zigzag)
+        int[][][] besusu = {
+                {PgeoFixture.ring(119_860_000, -890_000, 119_880_000, -870_000),
+                        PgeoFixture.ring(119_865_000, -885_000, 119_870_000, -880_000)},
+                {PgeoFixture.ring(119_890_000, -895_000, 119_891_000, -894_000)}
+        };
+        int[][][] talise = {{{119_880_000, -870_000, 119_900_000, -860_000, 119_885_000, -850_000}}};
+        byte[] data = PgeoFixture.encode(SCALE,
+                new PgeoFixture.Feature("besusu_barat", "Besusu Barat", besusu),
+                new PgeoFixture.Feature("talise", "Talise – Pantai", talise));
+
+        PgeoReader reader = PgeoReader.read(new ByteArrayInputStream(data));
+
+        assertEquals(SCALE, reader.getScale());
+        List<RegionShape> shapes = reader.getShapes();
+        assertEquals(2, shapes.size());
+
+        RegionShape first = shapes.get(0);
+        assertEquals("besusu_barat", first.getId());
+        assertEquals("Besusu Barat", first.getName());
+        assertEquals(119_860_000, first.getMinX());
+        assertEquals(-895_000, first.getMinY());
+        assertEquals(119_891_000, first.getMaxX());
+        assertEquals(-870_000, first.getMaxY());
+        assertTrue(Arrays.deepEquals(besusu, first.getPolygons()));
+
+        RegionShape second = shapes.get(1);
+        assertEquals("talise", second.getId());
+        assertEquals("Talise – Pantai", second.getName());
+        assertTrue(Arrays.deepEquals(talise, second.getPolygons()));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsWrongMagic() throws IOException {
+        byte[] data = PgeoFixture.encode(SCALE, PgeoFixture.rect("a", 0, 0, 10, 10));
+        data[0] = 'X';
+        PgeoReader.read(new ByteArrayInputStream(data));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsTruncatedData() throws IOException {
+        byte[] data = PgeoFixture.encode(SCALE, PgeoFixture.rect("a", 0, 0, 10, 10));
+        PgeoReader.read(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 3)));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsStringPastEndOfData() throws IOException {
+        byte[] data = PgeoFixture.encode(SCALE, new PgeoFixture.Feature("a",
+                "Nama kelurahan yang panjang", new int[][][]{{PgeoFixture.ring(0, 0, 10, 10)}}));
+        // Header (9 byte) + id "a" (2 byte) + panjang nama, lalu nama terpotong
+        PgeoReader.read(new ByteArrayInputStream(Arrays.copyOf(data, 9 + 2 + 1 + 5)));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.projectmagang.geometry;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class RegionLocatorTest {
+    private static final int SCALE = 1_000_000;
+
+    private static RegionLocator locator(PgeoFixture.Feature... features) throws IOException {
+        return RegionLocator.read(new ByteArrayInputStream(PgeoFixture.encode(SCALE, features)));
+    }
+
+    @Test
+    public void pointOnSharedBoundary_belongsToExactlyOneWard() throws IOException {
+        // Dua kelurahan bersebelahan dengan batas bersama x = 119_870_000
+        RegionLocator locator = locator(
+                PgeoFixture.rect("barat", 119_860_000, -890_000, 119_870_000, -880_000),
+                PgeoFixture.rect("timur", 119_870_000, -890_000, 119_880_000, -880_000));
+        RegionShape barat = locator.getShape("barat");
+        RegionShape timur = locator.getShape("timur");
+
+        int y = -885_000;
+        assertEquals("barat", locator.locateQuantized(119_869_999, y).getId());
+        assertEquals("timur", locator.locateQuantized(119_870_001, y).getId());
+
+        // Tepat di batas: aturan half-open memberi titik ke tepat satu kelurahan
+        assertNotEquals(barat.contains(119_870_000, y), timur.contains(119_870_000, y));
+        assertNotNull(locator.locateQuantized(119_870_000, y));
+    }
+
+    @Test
+    public void pointInHole_belongsToEnclaveNotOuterWard() throws IOException {
+        int[][][] outer = {{
+                PgeoFixture.ring(0, 0, 100, 100),
+                PgeoFixture.ring(40, 40, 60, 60)
+        }};
+        RegionLocator locator = locator(
+                new PgeoFixture.Feature("luar", "Luar", outer),
+                PgeoFixture.rect("enklave", 40, 40, 60, 60));
+
+        assertFalse(locator.getShape("luar").contains(50, 50));
+        assertEquals("enklave", locator.locateQuantized(50, 50).getId());
+        assertEquals("luar", locator.locateQuantized(20, 50).getId());
+        assertNull(locator.locateQuantized(150, 50));
+    }
+
+    @Test
+    public void locate_quantizesDegreesWithScale() throws IOException {
+        RegionLocator locator = locator(
+                PgeoFixture.rect("talise", 119_870_000, -880_000, 119_880_000, -870_000));
+
+        assertEquals("talise", locator.locate(-0.875, 119.875));
+        assertNull(locator.locate(-0.875, 119.8699994));
+        assertNull(locator.locate(0.875, 119.875));
+    }
+
+    @Test
+    public void grid_everyWardFoundThroughTree() throws IOException {
+        // 12 x 12 kelurahan: lebih dari satu level node R-tree
+        int size = 12;
+        PgeoFixture.Feature[] features = new PgeoFixture.Feature[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                features[row * size + col] = PgeoFixture.rect("w" + row + "_" + col,
+                        col * 1000, row * 1000, (col + 1) * 1000, (row + 1) * 1000);
+            }
+        }
+        RegionLocator locator = locator(features);
+        assertEquals(size * size, locator.size());
+
+        for (RegionShape shape : locator.getShapes()) {
+            int[] point = shape.interiorPoint();
+            assertEquals(shape.getId(), locator.locateQuantized(point[0], point[1]).getId());
+        }
+        assertNull(locator.locateQuantized(-1, 500));
+        assertNull(locator.locateQuantized(size * 1000 + 1, 500));
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.projectmagang.managers;
+
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionHistoryEntry;
+import com.example.projectmagang.models.RegionStatus;
+
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OutageMetricsEngineTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+    // Di tengah jam, supaya batas jendela tidak jatuh tepat di batas bucket
+    private static final long NOW = 1_700_000_000_000L / HOUR * HOUR + 30 * 60 * 1000;
+
+    private static Region region(String id, RegionStatus status, long timeMillis) {
+        return new Region(id, id, status.getKey(), "", new Timestamp(new Date(timeMillis)), false);
+    }
+
+    private static OutageMetricsEngine engine() {
+        OutageMetricsEngine engine = new OutageMetricsEngine();
+        engine.reset(NOW - 60 * DAY);
+        return engine;
+    }
+
+    @Test
+    public void outageStraddlingRingStart_onlyCountsInsideWindow() {
+        OutageMetricsEngine engine = engine();
+        engine.onStatusChanged("talise", RegionStatus.NORMAL, NOW - 40 * DAY);
+        engine.onStatusChanged("talise", RegionStatus.GANGGUAN, NOW - 31 * DAY);
+        engine.onStatusChanged("talise", RegionStatus.NORMAL, NOW - 29 * DAY);
+
+        OutageMetricsEngine.Metrics month =
+                engine.getWardMetrics("talise", OutageMetricsEngine.WINDOW_30D, NOW);
+        // Hanya hari terakhir gangguan yang masih di dalam ring (toleransi satu bucket)
+        assertEquals(DAY, month.getDownMillis(), HOUR);
+        // Awal gangguan sudah keluar ring, pemulihannya belum
+        assertEquals(0, month.getOutageCount());
+        assertEquals(2 * DAY, month.getMttrMillis());
+
+        OutageMetricsEngine.Metrics day =
+                engine.getWardMetrics("talise", OutageMetricsEngine.WINDOW_24H, NOW);
+        assertEquals(0, day.getDownMillis());
+        assertEquals(100.0, day.getUptimePercent(), 0.0);
+    }
+
+    @Test
+    public void ringWrap_clearsBucketsBeforeReuse() {
+        OutageMetricsEngine engine = engine();
+        // Dua gangguan satu jam, selisih tepat 30 hari: bucket ring yang sama
+        engine.onStatusChanged("besusu", RegionStatus.GANGGUAN, NOW - 45 * DAY);
+        engine.onStatusChanged("besusu", RegionStatus.NORMAL, NOW - 45 * DAY + HOUR);
+        engine.onStatusChanged("besusu", RegionStatus.GANGGUAN, NOW - 15 * DAY);
+        engine.onStatusChanged("besusu", RegionStatus.NORMAL, NOW - 15 * DAY + HOUR);
+
+        OutageMetricsEngine.Metrics month =
+                engine.getWardMetrics("besusu", OutageMetricsEngine.WINDOW_30D, NOW);
+        assertEquals(HOUR, month.getDownMillis());
+        assertEquals(1, month.getOutageCount());
+        assertEquals(HOUR, month.getMttrMillis());
+    }
+
+    @Test
+    public void ongoingOutageOlderThanRing_fillsWholeWindow() {
+        OutageMetricsEngine engine = engine();
+        engine.onStatusChanged("lolu", RegionStatus.GANGGUAN, NOW - 40 * DAY);
+
+        OutageMetricsEngine.Metrics month =
+                engine.getWardMetrics("lolu", OutageMetricsEngine.WINDOW_30D, NOW);
+        assertEquals(30 * DAY, month.getDownMillis());
+        assertEquals(0.0, month.getUptimePercent(), 0.0);
+        assertEquals(-1, month.getMttrMillis());
+
+        OutageMetricsEngine.Metrics week =
+                engine.getWardMetrics("lolu", OutageMetricsEngine.WINDOW_7D, NOW);
+        assertEquals(7 * DAY, week.getDownMillis());
+    }
+
+    @Test
+    public void dikerjakan_continuesOutageUntilNormal() {
+        OutageMetricsEngine engine = engine();
+        engine.onStatusChanged("tondo", RegionStatus.GANGGUAN, NOW - 10 * HOUR);
+        engine.onStatusChanged("tondo", RegionStatus.DIKERJAKAN, NOW - 6 * HOUR);
+        engine.onStatusChanged("tondo", RegionStatus.NORMAL, NOW - 4 * HOUR);
+
+        OutageMetricsEngine.Metrics day =
+                engine.getWardMetrics("tondo", OutageMetricsEngine.WINDOW_24H, NOW);
+        assertEquals(6 * HOUR, day.getDownMillis());
+        assertEquals(1, day.getOutageCount());
+        assertEquals(6 * HOUR, day.getMttrMillis());
+    }
+
+    @Test
+    public void replay_rebuildsFromHistory() {
+        OutageMetricsEngine engine = engine();
+        engine.onStatusChanged("talise", RegionStatus.GANGGUAN, NOW - 2 * HOUR);
+
+        engine.replay(NOW - 30 * DAY, NOW, Arrays.asList("talise", "talise"),
+                Arrays.asList(
+                        new RegionHistoryEntry(RegionStatus.GANGGUAN, "", NOW - 5 * HOUR),
+                        new RegionHistoryEntry(RegionStatus.NORMAL, "", NOW - 3 * HOUR)),
+                Collections.emptyList());
+
+        OutageMetricsEngine.Metrics day =
+                engine.getWardMetrics("talise", OutageMetricsEngine.WINDOW_24H, NOW);
+        assertEquals(2 * HOUR, day.getDownMillis());
+        assertEquals(1, day.getOutageCount());
+    }
+
+    @Test
+    public void removal_recordsRecoveryWithoutStale() {
+        OutageMetricsEngine engine = engine();
+        engine.onStatusChanged("talise", RegionStatus.GANGGUAN, NOW - 3 * HOUR);
+
+        engine.onRegionRemoved("talise", NOW - HOUR);
+        // Store kedua yang melaporkan pemulihan yang sama diabaikan
+        engine.onRegionRemoved("talise", NOW);
+
+        assertFalse(engine.isStale());
+        OutageMetricsEngine.Metrics day =
+                engine.getWardMetrics("talise", OutageMetricsEngine.WINDOW_24H, NOW);
+        assertEquals(2 * HOUR, day.getDownMillis());
+        assertEquals(2 * HOUR, day.getMttrMillis());
+    }
+
+    @Test
+    public void feedGap_withoutChanges_staysFresh() {
+        OutageMetricsEngine engine = engine();
+        engine.onStatusChanged("talise", RegionStatus.NORMAL, NOW - 5 * HOUR);
+        engine.markFeedGap(NOW - 2 * HOUR);
+
+        // Snapshot setelah dipasang lagi: recovery yang sudah tercatat, region lama
+        engine.onRegionRemoved("talise", NOW);
+        engine.closeFeedGap();
+
+        assertFalse(engine.isStale());
+    }
+
+    @Test
+    public void feedGap_removalOfOpenOutage_marksStale() {
+        OutageMetricsEngine engine = engine();
+        engine.onStatusChanged("talise", RegionStatus.GANGGUAN, NOW - 5 * HOUR);
+        engine.markFeedGap(NOW - 2 * HOUR);
+
+        // Pulih selama celah: waktunya tidak diketahui
+        engine.onRegionRemoved("talise", NOW);
+
+        assertTrue(engine.isStale());
+        OutageMetricsEngine.Metrics day =
+                engine.getWardMetrics("talise", OutageMetricsEngine.WINDOW_24H, NOW);
+        assertEquals(-1, day.getMttrMillis());
+    }
+
+    @Test
+    public void feedGap_changeInsideGap_marksStale() {
+        OutageMetricsEngine engine = engine();
+        engine.markFeedGap(NOW - 2 * HOUR);
+
+        engine.onRegionChanged("lolu", region("lolu", RegionStatus.GANGGUAN, NOW - 3 * HOUR));
+        assertFalse(engine.isStale());
+        engine.onRegionChanged("talise", region("talise", RegionStatus.GANGGUAN, NOW - HOUR));
+        assertTrue(engine.isStale());
+    }
+
+    @Test
+    public void replay_movesOpenFeedGapToQueryTime() {
+        OutageMetricsEngine engine = engine();
+        engine.markFeedGap(NOW - 2 * HOUR);
+        engine.replay(NOW - 30 * DAY, NOW - HOUR, Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList());
+
+        // Sudah tercakup riwayat yang baru diputar ulang
+        engine.onRegionChanged("talise", region("talise", RegionStatus.GANGGUAN, NOW - 90 * 60 * 1000));
+
+        assertFalse(engine.isStale());
+    }
+
+    @Test
+    public void combinedMetrics_weightByObservedTime() {
+        OutageMetricsEngine engine = engine();
+        engine.onStatusChanged("a", RegionStatus.GANGGUAN, NOW - 12 * HOUR);
+        engine.onStatusChanged("b", RegionStatus.NORMAL, NOW - 12 * HOUR);
+
+        OutageMetricsEngine.Metrics combined = engine.getCombinedMetrics(
+                Arrays.asList("a", "b"), OutageMetricsEngine.WINDOW_24H, NOW);
+        assertEquals(75.0, combined.getUptimePercent(), 1e-9);
+        assertEquals(1, combined.getOutageCount());
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.projectmagang.managers;
+
+import com.example.projectmagang.models.RegionStatus;
+
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RegionEditOutboxTest {
+
+    private static File newJournal() throws IOException {
+        File dir = Files.createTempDirectory("outbox").toFile();
+        dir.deleteOnExit();
+        File journal = new File(dir, "region_outbox.bin");
+        journal.deleteOnExit();
+        return journal;
+    }
+
+    // Executor sinkron: setiap persist() sudah tertulis saat method kembali
+    private static RegionEditOutbox open(File journal) {
+        return new RegionEditOutbox(journal, Runnable::run);
+    }
+
+    @Test
+    public void load_withoutJournal_isEmpty() throws IOException {
+        assertTrue(open(newJournal()).load().isEmpty());
+    }
+
+    @Test
+    public void persist_thenLoad_restoresEditsInEditOrder() throws IOException {
+        File journal = newJournal();
+        RegionEditOutbox outbox = open(journal);
+        RegionEditOutbox.Edit talise = outbox.record("talise", RegionStatus.GANGGUAN, "Kabel putus");
+        outbox.record("besusu", RegionStatus.DIKERJAKAN, null);
+
+        List<RegionEditOutbox.Edit> loaded = open(journal).load();
+
+        assertEquals(2, loaded.size());
+        RegionEditOutbox.Edit first = loaded.get(0);
+        assertEquals("talise", first.regionId);
+        assertEquals(RegionStatus.GANGGUAN, first.status);
+        assertEquals("Kabel putus", first.info);
+        assertEquals(talise.editId, first.editId);
+        assertEquals(talise.seq, first.seq);
+        assertEquals(talise.createdAt, first.createdAt);
+        assertFalse(first.inFlight);
+
+        assertEquals("besusu", loaded.get(1).regionId);
+        assertEquals("", loaded.get(1).info);
+    }
+
+    @Test
+    public void record_supersedesEarlierEditAndMovesRegionToEnd() throws IOException {
+        File journal = newJournal();
+        RegionEditOutbox outbox = open(journal);
+        RegionEditOutbox.Edit old = outbox.record("talise", RegionStatus.GANGGUAN, "");
+        outbox.record("besusu", RegionStatus.GANGGUAN, "");
+        RegionEditOutbox.Edit latest = outbox.record("talise", RegionStatus.NORMAL, "Pulih");
+
+        assertEquals(2, outbox.size());
+        // Edit lama sudah digantikan: remove() untuknya diabaikan
+        outbox.remove(old);
+        assertEquals(2, outbox.size());
+
+        List<RegionEditOutbox.Edit> loaded = open(journal).load();
+        assertEquals(2, loaded.size());
+        assertEquals("besusu", loaded.get(0).regionId);
+        assertEquals("talise", loaded.get(1).regionId);
+        assertEquals(latest.editId, loaded.get(1).editId);
+        assertEquals(RegionStatus.NORMAL, loaded.get(1).status);
+    }
+
+    @Test
+    public void load_continuesSequenceAfterJournal() throws IOException {
+        File journal = newJournal();
+        RegionEditOutbox outbox = open(journal);
+        outbox.record("talise", RegionStatus.GANGGUAN, "");
+        RegionEditOutbox.Edit last = outbox.record("besusu", RegionStatus.GANGGUAN, "");
+
+        RegionEditOutbox reopened = open(journal);
+        reopened.load();
+        RegionEditOutbox.Edit next = reopened.record("lolu", RegionStatus.GANGGUAN, "");
+        assertTrue(next.seq > last.seq);
+    }
+
+    @Test
+    public void remove_dropsEditFromJournal() throws IOException {
+        File journal = newJournal();
+        RegionEditOutbox outbox = open(journal);
+        RegionEditOutbox.Edit talise = outbox.record("talise", RegionStatus.GANGGUAN, "");
+        outbox.record("besusu", RegionStatus.GANGGUAN, "");
+
+        outbox.remove(talise);
+
+        List<RegionEditOutbox.Edit> loaded = open(journal).load();
+        assertEquals(1, loaded.size());
+        assertEquals("besusu", loaded.get(0).regionId);
+    }
+
+    @Test
+    public void handedOffEdit_isNotReplayedAndIsDroppedFromJournal() throws IOException {
+        File journal = newJournal();
+        RegionEditOutbox outbox = open(journal);
+        RegionEditOutbox.Edit talise = outbox.record("talise", RegionStatus.GANGGUAN, "");
+        outbox.record("besusu", RegionStatus.GANGGUAN, "");
+        outbox.markInFlight(talise);
+        outbox.markHandedOff(talise);
+
+        List<RegionEditOutbox.Edit> loaded = open(journal).load();
+        assertEquals(1, loaded.size());
+        assertEquals("besusu", loaded.get(0).regionId);
+
+        // load() menulis ulang journal tanpa edit yang sudah di tangan Firestore
+        assertEquals(1, open(journal).load().size());
+    }
+
+    @Test
+    public void retryAfterHandOff_putsEditBackIntoJournal() throws IOException {
+        File journal = newJournal();
+        RegionEditOutbox outbox = open(journal);
+        RegionEditOutbox.Edit talise = outbox.record("talise", RegionStatus.GANGGUAN, "");
+        outbox.markInFlight(talise);
+        outbox.markHandedOff(talise);
+        assertTrue(outbox.getReplayable().isEmpty());
+
+        outbox.markRetry(talise);
+
+        assertEquals(1, outbox.getReplayable().size());
+        List<RegionEditOutbox.Edit> loaded = open(journal).load();
+        assertEquals(1, loaded.size());
+        assertEquals(talise.editId, loaded.get(0).editId);
+    }
+
+    @Test
+    public void markHandedOff_ignoresSupersededEdit() throws IOException {
+        File journal = newJournal();
+        RegionEditOutbox outbox = open(journal);
+        RegionEditOutbox.Edit old = outbox.record("talise", RegionStatus.GANGGUAN, "");
+        RegionEditOutbox.Edit latest = outbox.record("talise", RegionStatus.NORMAL, "");
+
+        outbox.markHandedOff(old);
+
+        List<RegionEditOutbox.Edit> loaded = open(journal).load();
+        assertEquals(1, loaded.size());
+        assertEquals(latest.editId, loaded.get(0).editId);
+    }
+
+    @Test
+    public void markRetry_backsOffExponentiallyUntilReset() throws IOException {
+        RegionEditOutbox outbox = open(newJournal());
+        RegionEditOutbox.Edit talise = outbox.record("talise", RegionStatus.GANGGUAN, "");
+
+        long first = outbox.markRetry(talise);
+        long second = outbox.markRetry(talise);
+        assertEquals(2 * first, second);
+
+        outbox.resetBackoff();
+        assertEquals(first, outbox.markRetry(talise));
+    }
+
+    @Test
+    public void load_rejectsOtherVersion() throws IOException {
+        File journal = newJournal();
+        open(journal).record("talise", RegionStatus.GANGGUAN, "");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(journal))) {
+            out.writeInt(0x52454f31); // magic "REO1"
+            out.writeInt(2);
+            out.writeInt(0);
+        }
+
+        assertTrue(open(journal).load().isEmpty());
+    }
+
+    @Test
+    public void load_survivesTruncatedJournal() throws IOException {
+        File journal = newJournal();
+        RegionEditOutbox outbox = open(journal);
+        outbox.record("talise", RegionStatus.GANGGUAN, "");
+        outbox.record("besusu", RegionStatus.GANGGUAN, "");
+        byte[] data = Files.readAllBytes(journal.toPath());
+        Files.write(journal.toPath(), Arrays.copyOf(data, data.length - 4));
+
+        // Edit yang utuh tetap dipulihkan, sisanya diabaikan
+        List<RegionEditOutbox.Edit> loaded = open(journal).load();
+        assertEquals(1, loaded.size());
+        assertEquals("talise", loaded.get(0).regionId);
+    }
+
+    @Test
+    public void clear_deletesJournal() throws IOException {
+        File journal = newJournal();
+        RegionEditOutbox outbox = open(journal);
+        outbox.record("talise", RegionStatus.GANGGUAN, "");
+
+        outbox.clear();
+
+        assertEquals(0, outbox.size());
+        assertFalse(journal.exists());
+        assertTrue(open(journal).load().isEmpty());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.projectmagang.managers;
+
+import com.example.projectmagang.geometry.PgeoFixture;
+import com.example.projectmagang.geometry.RegionHierarchy;
+import com.example.projectmagang.geometry.RegionLocator;
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionStatistics;
+import com.example.projectmagang.models.RegionStatus;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RegionRollupTest {
+    private static final int SCALE = 1_000_000;
+
+    private static Region region(String id, RegionStatus status) {
+        return new Region(id, id, status.getKey(), "", null);
+    }
+
+    private static RegionLocator locator(PgeoFixture.Feature... features) throws IOException {
+        return RegionLocator.read(new ByteArrayInputStream(PgeoFixture.encode(SCALE, features)));
+    }
+
+    /**
+     * Dua kecamatan berdampingan (barat, timur), masing-masing dua kelurahan.
+     */
+    private static RegionHierarchy hierarchy() throws IOException {
+        RegionLocator districts = locator(
+                PgeoFixture.rect("palu_barat", 0, 0, 100, 100),
+                PgeoFixture.rect("palu_timur", 100, 0, 200, 100));
+        RegionLocator wards = locator(
+                PgeoFixture.rect("lere", 0, 0, 50, 100),
+                PgeoFixture.rect("baru", 50, 0, 100, 100),
+                PgeoFixture.rect("besusu", 100, 0, 150, 100),
+                PgeoFixture.rect("talise", 150, 0, 200, 100));
+        return RegionHierarchy.build(wards, districts);
+    }
+
+    private static void assertCounts(RegionStatistics stats, int total, int normal,
+                                     int gangguan, int dikerjakan) {
+        assertEquals(total, stats.getTotalRegions());
+        assertEquals(normal, stats.getNormalCount());
+        assertEquals(gangguan, stats.getGangguanCount());
+        assertEquals(dikerjakan, stats.getDikerjakanCount());
+    }
+
+    @Test
+    public void cityCounts_followStatusChangesAndRemovals() {
+        RegionRollup rollup = new RegionRollup();
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.NORMAL));
+        rollup.onRegionChanged("besusu", region("besusu", RegionStatus.GANGGUAN));
+        rollup.onRegionChanged("talise", region("talise", RegionStatus.NORMAL));
+        assertCounts(rollup.getCityStatistics(), 3, 2, 1, 0);
+
+        rollup.onRegionChanged("besusu", region("besusu", RegionStatus.DIKERJAKAN));
+        assertCounts(rollup.getCityStatistics(), 3, 2, 0, 1);
+
+        rollup.onRegionChanged("talise", null);
+        assertCounts(rollup.getCityStatistics(), 2, 1, 0, 1);
+    }
+
+    @Test
+    public void repeatedUpdateWithSameStatus_isCountedOnce() {
+        RegionRollup rollup = new RegionRollup();
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.GANGGUAN));
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.GANGGUAN));
+
+        assertCounts(rollup.getCityStatistics(), 1, 0, 1, 0);
+    }
+
+    @Test
+    public void removingUnknownRegion_isIgnored() {
+        RegionRollup rollup = new RegionRollup();
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.NORMAL));
+        rollup.onRegionChanged("tidak_ada", null);
+
+        assertCounts(rollup.getCityStatistics(), 1, 1, 0, 0);
+    }
+
+    @Test
+    public void unknownStatus_countsTowardTotalOnly() {
+        RegionRollup rollup = new RegionRollup();
+        rollup.onRegionChanged("lere", new Region("lere", "Lere", "entah", "", null));
+
+        assertCounts(rollup.getCityStatistics(), 1, 0, 0, 0);
+    }
+
+    @Test
+    public void districtSummaries_emptyUntilHierarchyLoaded() {
+        RegionRollup rollup = new RegionRollup();
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.GANGGUAN));
+
+        assertFalse(rollup.hasHierarchy());
+        assertTrue(rollup.getDistrictSummaries().isEmpty());
+        assertNull(rollup.getWardName("lere"));
+    }
+
+    @Test
+    public void setHierarchy_buildsDistrictTotalsFromRecordedStatuses() throws IOException {
+        RegionRollup rollup = new RegionRollup();
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.GANGGUAN));
+        rollup.onRegionChanged("baru", region("baru", RegionStatus.NORMAL));
+        rollup.onRegionChanged("talise", region("talise", RegionStatus.DIKERJAKAN));
+
+        rollup.setHierarchy(hierarchy());
+
+        assertTrue(rollup.hasHierarchy());
+        List<RegionRollup.DistrictSummary> summaries = rollup.getDistrictSummaries();
+        assertEquals(2, summaries.size());
+        RegionRollup.DistrictSummary barat = summaries.get(0);
+        assertEquals("palu_barat", barat.getId());
+        assertEquals(Arrays.asList("baru", "lere"), barat.getWardIds());
+        assertCounts(barat.getStatistics(), 2, 1, 1, 0);
+        assertCounts(summaries.get(1).getStatistics(), 1, 0, 0, 1);
+        assertEquals("besusu", rollup.getWardName("besusu"));
+    }
+
+    @Test
+    public void afterHierarchy_changesUpdateCityAndDistrictIncrementally() throws IOException {
+        RegionRollup rollup = new RegionRollup();
+        rollup.setHierarchy(hierarchy());
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.GANGGUAN));
+        rollup.onRegionChanged("besusu", region("besusu", RegionStatus.GANGGUAN));
+
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.NORMAL));
+        rollup.onRegionChanged("besusu", null);
+
+        assertCounts(rollup.getCityStatistics(), 1, 1, 0, 0);
+        List<RegionRollup.DistrictSummary> summaries = rollup.getDistrictSummaries();
+        assertCounts(summaries.get(0).getStatistics(), 1, 1, 0, 0);
+        assertCounts(summaries.get(1).getStatistics(), 0, 0, 0, 0);
+    }
+
+    @Test
+    public void wardOutsideHierarchy_countsForCityOnly() throws IOException {
+        RegionRollup rollup = new RegionRollup();
+        rollup.setHierarchy(hierarchy());
+        rollup.onRegionChanged("kelurahan_baru", region("kelurahan_baru", RegionStatus.GANGGUAN));
+
+        assertCounts(rollup.getCityStatistics(), 1, 0, 1, 0);
+        for (RegionRollup.DistrictSummary district : rollup.getDistrictSummaries()) {
+            assertEquals(0, district.getStatistics().getTotalRegions());
+        }
+    }
+
+    @Test
+    public void statistics_areSnapshotsNotLiveViews() {
+        RegionRollup rollup = new RegionRollup();
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.NORMAL));
+        RegionStatistics before = rollup.getCityStatistics();
+
+        rollup.onRegionChanged("baru", region("baru", RegionStatus.NORMAL));
+
+        assertEquals(1, before.getTotalRegions());
+        assertEquals(2, rollup.getCityStatistics().getTotalRegions());
+    }
+
+    @Test
+    public void clear_resetsCityAndDistrictTotals() throws IOException {
+        RegionRollup rollup = new RegionRollup();
+        rollup.setHierarchy(hierarchy());
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.GANGGUAN));
+        rollup.onRegionChanged("talise", region("talise", RegionStatus.NORMAL));
+
+        rollup.clear();
+
+        assertCounts(rollup.getCityStatistics(), 0, 0, 0, 0);
+        for (RegionRollup.DistrictSummary district : rollup.getDistrictSummaries()) {
+            assertEquals(0, district.getStatistics().getTotalRegions());
+        }
+        // Setelah clear, status lama tidak lagi dikurangi dari hitungan
+        rollup.onRegionChanged("lere", region("lere", RegionStatus.NORMAL));
+        assertCounts(rollup.getCityStatistics(), 1, 1, 0, 0);
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.projectmagang.managers;
+
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionChangeSet;
+import com.example.projectmagang.models.RegionStatus;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RegionSubscriptionHubTest {
+
+    /**
+     * Store yang mencatat setiap change set yang diterapkan hub.
+     */
+    private static final class RecordingStore extends RegionStore {
+        final List<RegionChangeSet> applied = new ArrayList<>();
+
+        @Override
+        public synchronized void apply(RegionChangeSet changes) {
+            applied.add(changes);
+            super.apply(changes);
+        }
+
+        RegionChangeSet last() {
+            return applied.get(applied.size() - 1);
+        }
+    }
+
+    private final RecordingStore store = new RecordingStore();
+    // Tanpa query: snapshot diberikan langsung lewat applySnapshot, decode sinkron
+    private final RegionSubscriptionHub hub =
+            new RegionSubscriptionHub("test", null, store, Runnable::run);
+
+    private static Region region(String id, RegionStatus status, long seconds) {
+        return new Region(id, id, status.getKey(), "", new Timestamp(seconds, 0), false);
+    }
+
+    private static Region pending(String id, RegionStatus status, long seconds) {
+        return new Region(id, id, status.getKey(), "", new Timestamp(seconds, 0), true);
+    }
+
+    private static RegionSubscriptionHub.DocumentDelta added(Region region) {
+        return new RegionSubscriptionHub.DocumentDelta(DocumentChange.Type.ADDED, region.getId(), region);
+    }
+
+    private static RegionSubscriptionHub.DocumentDelta modified(Region region) {
+        return new RegionSubscriptionHub.DocumentDelta(DocumentChange.Type.MODIFIED, region.getId(), region);
+    }
+
+    private static RegionSubscriptionHub.DocumentDelta removed(String regionId) {
+        return new RegionSubscriptionHub.DocumentDelta(DocumentChange.Type.REMOVED, regionId, null);
+    }
+
+    private static List<String> ids(Collection<Region> regions) {
+        List<String> ids = new ArrayList<>();
+        for (Region region : regions) {
+            ids.add(region.getId());
+        }
+        return ids;
+    }
+
+    private void snapshot(RegionSubscriptionHub.DocumentDelta... deltas) {
+        hub.applySnapshot(Arrays.asList(deltas));
+    }
+
+    @Test
+    public void firstSnapshot_onEmptyStore_addsEverything() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)),
+                added(region("talise", RegionStatus.GANGGUAN, 1)));
+
+        assertEquals(Arrays.asList("lere", "talise"), ids(store.last().getAdded()));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void firstSnapshot_afterSeed_onlyForwardsDifferences() {
+        RegionChangeSet seed = new RegionChangeSet();
+        seed.add(region("lere", RegionStatus.NORMAL, 1));
+        seed.add(region("besusu", RegionStatus.NORMAL, 1));
+        seed.add(region("baru", RegionStatus.NORMAL, 1));
+        store.apply(seed);
+
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)),
+                added(region("besusu", RegionStatus.GANGGUAN, 2)),
+                added(region("talise", RegionStatus.NORMAL, 1)));
+
+        RegionChangeSet changes = store.last();
+        assertEquals(Arrays.asList("talise"), ids(changes.getAdded()));
+        assertEquals(Arrays.asList("besusu"), ids(changes.getModified()));
+        // Ada di cache tetapi tidak lagi di server
+        assertEquals(new HashSet<>(Arrays.asList("baru")), changes.getRemoved());
+        assertEquals(RegionStatus.GANGGUAN, store.get("besusu").getStatusType());
+        assertFalse(store.contains("baru"));
+    }
+
+    @Test
+    public void laterSnapshot_skipsMetadataOnlyModify() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)));
+        int[] storeChanges = {0};
+        hub.setOnStoreChangedListener(() -> storeChanges[0]++);
+
+        snapshot(modified(region("lere", RegionStatus.NORMAL, 1)));
+
+        assertTrue(store.last().isEmpty());
+        assertEquals(0, storeChanges[0]);
+    }
+
+    @Test
+    public void laterSnapshot_forwardsChangesAndRemovals() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)),
+                added(region("talise", RegionStatus.NORMAL, 1)));
+
+        snapshot(modified(region("lere", RegionStatus.GANGGUAN, 2)), removed("talise"),
+                added(region("besusu", RegionStatus.NORMAL, 2)));
+
+        RegionChangeSet changes = store.last();
+        assertEquals(Arrays.asList("besusu"), ids(changes.getAdded()));
+        assertEquals(Arrays.asList("lere"), ids(changes.getModified()));
+        assertEquals(new HashSet<>(Arrays.asList("talise")), changes.getRemoved());
+    }
+
+    @Test
+    public void seed_fillsEmptyStoreUntilFirstSnapshot() {
+        hub.seed(Arrays.asList(region("lere", RegionStatus.NORMAL, 1),
+                region("talise", RegionStatus.GANGGUAN, 1)));
+        assertEquals(2, store.size());
+
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)),
+                added(region("talise", RegionStatus.NORMAL, 2)));
+
+        RegionChangeSet changes = store.last();
+        assertTrue(changes.getAdded().isEmpty());
+        assertEquals(Arrays.asList("talise"), ids(changes.getModified()));
+    }
+
+    @Test
+    public void seed_isSkippedOnceLiveDataArrived() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 2)));
+
+        hub.seed(Arrays.asList(region("lere", RegionStatus.GANGGUAN, 1),
+                region("talise", RegionStatus.GANGGUAN, 1)));
+
+        assertEquals(1, store.size());
+        assertEquals(RegionStatus.NORMAL, store.get("lere").getStatusType());
+    }
+
+    @Test
+    public void resyncedListener_runsOnlyForFirstSnapshot() {
+        int[] resynced = {0};
+        hub.setOnResyncedListener(() -> resynced[0]++);
+
+        snapshot();
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)));
+
+        assertEquals(1, resynced[0]);
+    }
+
+    @Test
+    public void optimisticEdit_isNotOverwrittenByServerSnapshot() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)));
+
+        hub.applyOptimistic(pending("lere", RegionStatus.GANGGUAN, 1), 1);
+        assertEquals(RegionStatus.GANGGUAN, store.get("lere").getStatusType());
+
+        // Edit client lain selama edit ini belum diserahkan: hanya titik rollback
+        snapshot(modified(region("lere", RegionStatus.DIKERJAKAN, 2)));
+        assertTrue(store.last().isEmpty());
+        assertEquals(RegionStatus.GANGGUAN, store.get("lere").getStatusType());
+    }
+
+    @Test
+    public void rollback_restoresLatestServerVersion() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)));
+        hub.applyOptimistic(pending("lere", RegionStatus.GANGGUAN, 1), 1);
+        snapshot(modified(region("lere", RegionStatus.DIKERJAKAN, 2)));
+
+        hub.rollbackOptimistic("lere", 1);
+
+        Region current = store.get("lere");
+        assertEquals(RegionStatus.DIKERJAKAN, current.getStatusType());
+        assertFalse(current.isPendingWrite());
+    }
+
+    @Test
+    public void rollback_ofNewRegion_removesIt() {
+        hub.applyOptimistic(pending("lere", RegionStatus.GANGGUAN, 1), 1);
+        assertTrue(store.contains("lere"));
+
+        hub.rollbackOptimistic("lere", 1);
+
+        assertFalse(store.contains("lere"));
+        assertEquals(new HashSet<>(Arrays.asList("lere")), store.last().getRemoved());
+    }
+
+    @Test
+    public void confirm_appliesServerVersionReceivedAfterSubmit() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)));
+        hub.applyOptimistic(pending("lere", RegionStatus.GANGGUAN, 1), 1);
+        hub.markSubmitted("lere", 1);
+
+        // Snapshot final tiba sebelum callback commit
+        snapshot(modified(region("lere", RegionStatus.GANGGUAN, 5)));
+        assertTrue(store.get("lere").isPendingWrite());
+
+        hub.confirmOptimistic("lere", 1);
+
+        Region current = store.get("lere");
+        assertFalse(current.isPendingWrite());
+        assertEquals(new Timestamp(5, 0), current.getLastUpdate());
+    }
+
+    @Test
+    public void confirm_ignoresServerVersionFromBeforeSubmit() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)));
+        hub.applyOptimistic(pending("lere", RegionStatus.GANGGUAN, 1), 1);
+        snapshot(modified(region("lere", RegionStatus.DIKERJAKAN, 2)));
+        hub.markSubmitted("lere", 1);
+        int applied = store.applied.size();
+
+        hub.confirmOptimistic("lere", 1);
+
+        // Versi sebelum write diserahkan sudah basi; snapshot berikutnya yang menetapkan nilai
+        assertEquals(applied, store.applied.size());
+        assertEquals(RegionStatus.GANGGUAN, store.get("lere").getStatusType());
+
+        snapshot(modified(region("lere", RegionStatus.GANGGUAN, 5)));
+        assertFalse(store.get("lere").isPendingWrite());
+    }
+
+    @Test
+    public void supersededEdit_confirmAndRollbackAreIgnored() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)));
+        hub.applyOptimistic(pending("lere", RegionStatus.GANGGUAN, 1), 1);
+        hub.applyOptimistic(pending("lere", RegionStatus.DIKERJAKAN, 1), 2);
+
+        hub.rollbackOptimistic("lere", 1);
+        hub.confirmOptimistic("lere", 1);
+        assertEquals(RegionStatus.DIKERJAKAN, store.get("lere").getStatusType());
+
+        // Edit terakhir masih bisa di-rollback ke versi server sebelum kedua edit
+        hub.rollbackOptimistic("lere", 2);
+        assertEquals(RegionStatus.NORMAL, store.get("lere").getStatusType());
+    }
+
+    @Test
+    public void localEcho_ofOptimisticEdit_isNotForwardedTwice() {
+        snapshot(added(region("lere", RegionStatus.NORMAL, 1)));
+        hub.applyOptimistic(pending("lere", RegionStatus.GANGGUAN, 1), 1);
+
+        // Snapshot lokal Firestore (hasPendingWrites) dengan isi yang sama
+        snapshot(modified(pending("lere", RegionStatus.GANGGUAN, 1)));
+
+        assertTrue(store.last().isEmpty());
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.projectmagang.managers;
+
+import com.example.projectmagang.models.RegionStatus;
+
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RegionWriteQueueTest {
+
+    /**
+     * Committer yang menahan setiap batch sampai test menyelesaikannya,
+     * seperti commit Firestore yang asinkron.
+     */
+    private static final class FakeCommitter implements RegionWriteQueue.BatchCommitter {
+        final List<List<Map.Entry<String, RegionWriteQueue.PendingEdit>>> batches = new ArrayList<>();
+        final List<RegionWriteQueue.BatchCallback> callbacks = new ArrayList<>();
+
+        @Override
+        public void commit(List<Map.Entry<String, RegionWriteQueue.PendingEdit>> entries,
+                           RegionWriteQueue.BatchCallback callback) {
+            batches.add(new ArrayList<>(entries));
+            callbacks.add(callback);
+        }
+
+        List<String> regionIds(int batch) {
+            List<String> ids = new ArrayList<>();
+            for (Map.Entry<String, RegionWriteQueue.PendingEdit> entry : batches.get(batch)) {
+                ids.add(entry.getKey());
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Mencatat callback yang diterima satu edit, dalam urutan.
+     */
+    private static final class RecordingCallback implements RegionWriteQueue.WriteCallback {
+        final List<String> events = new ArrayList<>();
+        Exception failure;
+
+        @Override
+        public void onSuccess() {
+            events.add("success");
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            events.add("failure");
+            failure = e;
+        }
+
+        @Override
+        public void onSubmitted() {
+            events.add("submitted");
+        }
+
+        @Override
+        public void onQueued() {
+            events.add("queued");
+        }
+    }
+
+    private final FakeCommitter committer = new FakeCommitter();
+    private final RegionWriteQueue queue = new RegionWriteQueue(committer);
+
+    private RecordingCallback enqueue(String regionId, String editId, RegionStatus status) {
+        RecordingCallback callback = new RecordingCallback();
+        queue.enqueue(regionId, editId, status, "", callback);
+        return callback;
+    }
+
+    @Test
+    public void flush_withoutEdits_commitsNothing() {
+        queue.flush();
+        assertTrue(committer.batches.isEmpty());
+    }
+
+    @Test
+    public void repeatedEdits_coalesceIntoOneWriteWithLastValue() {
+        RecordingCallback first = enqueue("lere", "edit-1", RegionStatus.GANGGUAN);
+        enqueue("talise", "edit-2", RegionStatus.GANGGUAN);
+        RecordingCallback last = new RecordingCallback();
+        queue.enqueue("lere", "edit-3", RegionStatus.DIKERJAKAN, "Teknisi di lokasi", last);
+
+        queue.flush();
+
+        assertEquals(1, committer.batches.size());
+        // Urutan edit pertama per region dipertahankan
+        assertEquals(Arrays.asList("lere", "talise"), committer.regionIds(0));
+        RegionWriteQueue.PendingEdit lere = committer.batches.get(0).get(0).getValue();
+        assertEquals("edit-3", lere.editId);
+        assertEquals(RegionStatus.DIKERJAKAN, lere.status);
+        assertEquals("Teknisi di lokasi", lere.info);
+
+        // Kedua pemanggil tetap mendapat hasilnya
+        committer.callbacks.get(0).onSuccess();
+        assertEquals(Arrays.asList("submitted", "success"), first.events);
+        assertEquals(Arrays.asList("submitted", "success"), last.events);
+    }
+
+    @Test
+    public void flush_clearsQueue() {
+        enqueue("lere", "edit-1", RegionStatus.GANGGUAN);
+        queue.flush();
+        queue.flush();
+
+        assertEquals(1, committer.batches.size());
+    }
+
+    @Test
+    public void manyEdits_areSplitIntoBatchesWithinOperationLimit() {
+        for (int i = 0; i < 260; i++) {
+            enqueue("ward_" + i, "edit-" + i, RegionStatus.GANGGUAN);
+        }
+
+        queue.flush();
+
+        // 500 operasi per batch, 2 operasi per edit
+        assertEquals(2, committer.batches.size());
+        assertEquals(250, committer.batches.get(0).size());
+        assertEquals(10, committer.batches.get(1).size());
+        assertEquals("ward_250", committer.regionIds(1).get(0));
+    }
+
+    @Test
+    public void rejectedBatch_isResubmittedOneByOne() {
+        RecordingCallback lere = enqueue("lere", "edit-1", RegionStatus.GANGGUAN);
+        RecordingCallback hilang = enqueue("hilang", "edit-2", RegionStatus.GANGGUAN);
+        RecordingCallback talise = enqueue("talise", "edit-3", RegionStatus.GANGGUAN);
+        queue.flush();
+
+        Exception notFound = new FirebaseFirestoreException("No document",
+                FirebaseFirestoreException.Code.NOT_FOUND);
+        committer.callbacks.get(0).onFailure(notFound);
+
+        assertEquals(4, committer.batches.size());
+        assertEquals(Arrays.asList("lere"), committer.regionIds(1));
+        assertEquals(Arrays.asList("hilang"), committer.regionIds(2));
+        assertEquals(Arrays.asList("talise"), committer.regionIds(3));
+        // Kegagalan batch gabungan tidak diteruskan ke pemanggil
+        assertFalse(lere.events.contains("failure"));
+
+        committer.callbacks.get(1).onSuccess();
+        committer.callbacks.get(2).onFailure(notFound);
+        committer.callbacks.get(3).onSuccess();
+
+        assertEquals("success", lere.events.get(lere.events.size() - 1));
+        assertEquals("success", talise.events.get(talise.events.size() - 1));
+        assertEquals("failure", hilang.events.get(hilang.events.size() - 1));
+        assertSame(notFound, hilang.failure);
+    }
+
+    @Test
+    public void rejectedSingleEdit_failsWithoutResubmitting() {
+        RecordingCallback lere = enqueue("lere", "edit-1", RegionStatus.GANGGUAN);
+        queue.flush();
+
+        Exception denied = new FirebaseFirestoreException("Denied",
+                FirebaseFirestoreException.Code.PERMISSION_DENIED);
+        committer.callbacks.get(0).onFailure(denied);
+
+        assertEquals(1, committer.batches.size());
+        assertSame(denied, lere.failure);
+    }
+
+    @Test
+    public void transientBatchFailure_isNotSplit() {
+        RecordingCallback lere = enqueue("lere", "edit-1", RegionStatus.GANGGUAN);
+        RecordingCallback talise = enqueue("talise", "edit-2", RegionStatus.GANGGUAN);
+        queue.flush();
+
+        Exception unavailable = new FirebaseFirestoreException("Offline",
+                FirebaseFirestoreException.Code.UNAVAILABLE);
+        committer.callbacks.get(0).onFailure(unavailable);
+
+        // Dikirim ulang oleh outbox nanti, bukan dipecah sekarang
+        assertEquals(1, committer.batches.size());
+        assertSame(unavailable, lere.failure);
+        assertSame(unavailable, talise.failure);
+    }
+
+    @Test
+    public void queued_isReportedOnlyToThatRegion() {
+        RecordingCallback lere = enqueue("lere", "edit-1", RegionStatus.GANGGUAN);
+        RecordingCallback talise = enqueue("talise", "edit-2", RegionStatus.GANGGUAN);
+        queue.flush();
+
+        committer.callbacks.get(0).onQueued("talise");
+
+        assertFalse(lere.events.contains("queued"));
+        assertEquals(Arrays.asList("submitted", "queued"), talise.events);
+    }
+
+    @Test
+    public void isTransient_onlyForRetryableFirestoreCodes() {
+        assertTrue(RegionWriteQueue.isTransient(new FirebaseFirestoreException("",
+                FirebaseFirestoreException.Code.UNAVAILABLE)));
+        assertTrue(RegionWriteQueue.isTransient(new FirebaseFirestoreException("",
+                FirebaseFirestoreException.Code.ABORTED)));
+        assertFalse(RegionWriteQueue.isTransient(new FirebaseFirestoreException("",
+                FirebaseFirestoreException.Code.NOT_FOUND)));
+        assertFalse(RegionWriteQueue.isTransient(new IllegalStateException()));
+    }
+}
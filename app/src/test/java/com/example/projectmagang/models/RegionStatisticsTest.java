@@ -0,0 +1,50 @@
+package com.example.projectmagang.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class RegionStatisticsTest {
+
+    private static Region region(String id, String status) {
+        return new Region(id, id, status, "", null);
+    }
+
+    @Test
+    public void calculate_countsEveryStatusIntoTotal() {
+        RegionStatistics stats = RegionStatistics.calculate(Arrays.asList(
+                region("a", "normal"),
+                region("b", "Gangguan"),
+                region("c", "dikerjakan"),
+                region("d", "gangguan"),
+                region("e", "rusak")));
+
+        assertEquals(5, stats.getTotalRegions());
+        assertEquals(1, stats.getNormalCount());
+        assertEquals(2, stats.getGangguanCount());
+        assertEquals(1, stats.getDikerjakanCount());
+    }
+
+    @Test
+    public void calculate_emptyOrNull() {
+        assertEquals(0, RegionStatistics.calculate(Collections.emptyList()).getTotalRegions());
+        assertEquals(0, RegionStatistics.calculate(null).getTotalRegions());
+    }
+
+    @Test
+    public void calculate_matchesFromCounts() {
+        int[] counts = new int[RegionStatus.count()];
+        counts[RegionStatus.NORMAL.ordinal()] = 2;
+        counts[RegionStatus.GANGGUAN.ordinal()] = 1;
+        RegionStatistics expected = RegionStatistics.fromCounts(counts);
+        RegionStatistics actual = RegionStatistics.calculate(Arrays.asList(
+                region("a", "normal"), region("b", "normal"), region("c", "gangguan")));
+
+        assertEquals(expected.getTotalRegions(), actual.getTotalRegions());
+        assertEquals(expected.getNormalCount(), actual.getNormalCount());
+        assertEquals(expected.getGangguanCount(), actual.getGangguanCount());
+    }
+}
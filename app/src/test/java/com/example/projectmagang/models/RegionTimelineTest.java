@@ -0,0 +1,59 @@
+package com.example.projectmagang.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RegionTimelineTest {
+    private static final long FROM = 1_000_000L;
+    private static final long TO = 2_000_000L;
+
+    private static RegionHistoryEntry entry(RegionStatus status, long time) {
+        return new RegionHistoryEntry(status, null, time);
+    }
+
+    @Test
+    public void build_pairsOutagesWithRecovery() {
+        RegionTimeline timeline = RegionTimeline.build(RegionStatus.NORMAL, Arrays.asList(
+                entry(RegionStatus.GANGGUAN, 1_100_000),
+                entry(RegionStatus.DIKERJAKAN, 1_150_000),
+                entry(RegionStatus.NORMAL, 1_200_000),
+                entry(RegionStatus.GANGGUAN, 1_500_000),
+                entry(RegionStatus.NORMAL, 1_800_000)), FROM, TO);
+
+        List<RegionTimeline.Outage> outages = timeline.getOutages();
+        assertEquals(2, outages.size());
+        assertEquals(1_100_000, outages.get(0).getStartMillis());
+        assertEquals(1_200_000, outages.get(0).getEndMillis());
+        assertFalse(outages.get(0).isOngoing());
+        assertEquals(300_000, outages.get(1).getDurationMillis());
+        assertEquals(400_000, timeline.getTotalOutageMillis());
+        assertEquals(200_000, timeline.getMttrMillis());
+    }
+
+    @Test
+    public void build_issueBeforeRangeStartsAtFrom() {
+        RegionTimeline timeline = RegionTimeline.build(RegionStatus.GANGGUAN,
+                Collections.singletonList(entry(RegionStatus.NORMAL, 1_300_000)), FROM, TO);
+
+        assertEquals(1, timeline.getOutages().size());
+        assertEquals(FROM, timeline.getOutages().get(0).getStartMillis());
+        assertEquals(300_000, timeline.getMttrMillis());
+    }
+
+    @Test
+    public void build_ongoingOutageEndsAtRangeAndIsExcludedFromMttr() {
+        RegionTimeline timeline = RegionTimeline.build(null,
+                Collections.singletonList(entry(RegionStatus.DIKERJAKAN, 1_600_000)), FROM, TO);
+
+        RegionTimeline.Outage outage = timeline.getOutages().get(0);
+        assertTrue(outage.isOngoing());
+        assertEquals(TO, outage.getEndMillis());
+        assertEquals(400_000, timeline.getTotalOutageMillis());
+        assertEquals(-1, timeline.getMttrMillis());
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.projectmagang.workers;
+
+import com.example.projectmagang.models.Region;
+import com.example.projectmagang.models.RegionStatus;
+
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RegionSyncWorkerTest {
+
+    /**
+     * Koleksi region di "server": dijawab seperti query
+     * whereGreaterThanOrEqualTo(lastUpdate) + startAfter(lastUpdate, id).
+     */
+    private static final class FakeSource implements RegionSyncWorker.PageSource {
+        final List<RegionSyncWorker.SyncedDocument> documents = new ArrayList<>();
+        int fetches;
+
+        void put(String id, RegionStatus status, long seconds) {
+            Timestamp lastUpdate = new Timestamp(seconds, 0);
+            documents.removeIf(doc -> doc.id.equals(id));
+            documents.add(new RegionSyncWorker.SyncedDocument(id, lastUpdate,
+                    new Region(id, id, status.getKey(), "", lastUpdate)));
+            documents.sort((a, b) -> {
+                int c = a.lastUpdate.compareTo(b.lastUpdate);
+                return c != 0 ? c : a.id.compareTo(b.id);
+            });
+        }
+
+        @Override
+        public List<RegionSyncWorker.SyncedDocument> fetch(Timestamp cursor, String cursorDocument,
+                                                           int limit) {
+            fetches++;
+            List<RegionSyncWorker.SyncedDocument> page = new ArrayList<>();
+            for (RegionSyncWorker.SyncedDocument doc : documents) {
+                int c = doc.lastUpdate.compareTo(cursor);
+                boolean after = c > 0 || (c == 0
+                        && (cursorDocument == null || doc.id.compareTo(cursorDocument) > 0));
+                if (!after) continue;
+                page.add(doc);
+                if (page.size() == limit) break;
+            }
+            return page;
+        }
+    }
+
+    private final FakeSource source = new FakeSource();
+    private final Map<String, Region> known = new HashMap<>();
+
+    private RegionSyncWorker.SyncResult pull(Timestamp cursor, String cursorDocument,
+                                             int pageSize, int maxPages) throws Exception {
+        return RegionSyncWorker.pull(source, known, cursor, cursorDocument, pageSize, maxPages,
+                () -> false);
+    }
+
+    private static List<String> ids(List<Region> regions) {
+        List<String> ids = new ArrayList<>();
+        for (Region region : regions) {
+            ids.add(region.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void equalTimestampGroup_spanningPages_isReadCompletely() throws Exception {
+        // Satu batch edit: lima region dengan lastUpdate yang sama
+        for (String id : Arrays.asList("a", "b", "c", "d", "e")) {
+            source.put(id, RegionStatus.NORMAL, 100);
+        }
+
+        RegionSyncWorker.SyncResult result = pull(new Timestamp(50, 0), null, 2, 10);
+
+        assertEquals(5, result.changed);
+        assertEquals(5, known.size());
+        assertEquals(new Timestamp(100, 0), result.cursor);
+        assertEquals("e", result.cursorDocument);
+    }
+
+    @Test
+    public void runStoppedInsideGroup_resumesAtNextDocument() throws Exception {
+        for (String id : Arrays.asList("a", "b", "c", "d", "e")) {
+            source.put(id, RegionStatus.GANGGUAN, 100);
+        }
+
+        // Batas halaman tercapai di tengah kelompok timestamp yang sama
+        RegionSyncWorker.SyncResult first = pull(new Timestamp(50, 0), null, 2, 1);
+        assertEquals(Arrays.asList("a", "b"), ids(first.newOutages));
+        assertEquals("b", first.cursorDocument);
+        assertEquals(1, source.fetches);
+
+        RegionSyncWorker.SyncResult second = pull(first.cursor, first.cursorDocument, 2, 10);
+
+        // Tidak ada region yang terlewat atau terbaca dua kali
+        assertEquals(Arrays.asList("c", "d", "e"), ids(second.newOutages));
+        assertEquals(3, second.changed);
+        assertEquals("e", second.cursorDocument);
+    }
+
+    @Test
+    public void pull_stopsAfterMaxPages() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            source.put("ward_" + i, RegionStatus.NORMAL, 100 + i);
+        }
+
+        RegionSyncWorker.SyncResult result = pull(new Timestamp(50, 0), null, 2, 3);
+
+        assertEquals(3, source.fetches);
+        assertEquals(6, result.changed);
+        assertEquals("ward_5", result.cursorDocument);
+        assertEquals(new Timestamp(105, 0), result.cursor);
+    }
+
+    @Test
+    public void pull_stopsAtShortPage() throws Exception {
+        source.put("a", RegionStatus.NORMAL, 100);
+        source.put("b", RegionStatus.NORMAL, 101);
+        source.put("c", RegionStatus.NORMAL, 102);
+
+        pull(new Timestamp(50, 0), null, 2, 10);
+
+        assertEquals(2, source.fetches);
+    }
+
+    @Test
+    public void nothingNew_keepsCursor() throws Exception {
+        source.put("a", RegionStatus.NORMAL, 100);
+
+        RegionSyncWorker.SyncResult result = pull(new Timestamp(100, 0), "a", 2, 10);
+
+        assertEquals(0, result.changed);
+        assertEquals(new Timestamp(100, 0), result.cursor);
+        assertEquals("a", result.cursorDocument);
+    }
+
+    @Test
+    public void newOutages_onlyForTransitionsIntoGangguan() throws Exception {
+        known.put("lere", new Region("lere", "lere", RegionStatus.GANGGUAN.getKey(), "", null));
+        known.put("baru", new Region("baru", "baru", RegionStatus.NORMAL.getKey(), "", null));
+        source.put("lere", RegionStatus.GANGGUAN, 100);
+        source.put("baru", RegionStatus.GANGGUAN, 101);
+        source.put("talise", RegionStatus.DIKERJAKAN, 102);
+        source.put("besusu", RegionStatus.GANGGUAN, 103);
+
+        RegionSyncWorker.SyncResult result = pull(new Timestamp(50, 0), null, 10, 10);
+
+        assertEquals(Arrays.asList("baru", "besusu"), ids(result.newOutages));
+        assertEquals(4, result.changed);
+        assertEquals(RegionStatus.DIKERJAKAN, known.get("talise").getStatusType());
+    }
+
+    @Test
+    public void undecodableDocument_isSkippedButAdvancesCursor() throws Exception {
+        source.put("a", RegionStatus.NORMAL, 100);
+        source.documents.add(new RegionSyncWorker.SyncedDocument("rusak", new Timestamp(101, 0), null));
+
+        RegionSyncWorker.SyncResult result = pull(new Timestamp(50, 0), null, 10, 10);
+
+        assertEquals(1, result.changed);
+        assertFalse(known.containsKey("rusak"));
+        assertEquals("rusak", result.cursorDocument);
+    }
+
+    @Test
+    public void stoppedWorker_readsNothing() throws Exception {
+        source.put("a", RegionStatus.NORMAL, 100);
+
+        RegionSyncWorker.SyncResult result = RegionSyncWorker.pull(source, known,
+                new Timestamp(50, 0), null, 10, 10, () -> true);
+
+        assertEquals(0, source.fetches);
+        assertEquals(new Timestamp(50, 0), result.cursor);
+        assertNull(result.cursorDocument);
+    }
+}
@@ -0,0 +1,9 @@
+plugins {
+    java
+}
+
+dependencies {
+    implementation(gradleApi())
+    // groovy.json.JsonSlurper for reading GeoJSON at build time
+    implementation(localGroovy())
+}
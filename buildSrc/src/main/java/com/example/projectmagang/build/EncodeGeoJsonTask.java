@@ -0,0 +1,63 @@
+package com.example.projectmagang.build;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Encodes every {@code *.geojson} file in {@link #getSourceDir()} into a
+ * {@code *.pgeo} asset (see {@link GeoJsonEncoder}).
+ */
+@CacheableTask
+public abstract class EncodeGeoJsonTask extends DefaultTask {
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getSourceDir();
+
+    /** Quantization factor, coordinates are stored as round(degrees * scale). */
+    @Input
+    public abstract Property<Integer> getScale();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
+
+    @TaskAction
+    public void encode() throws IOException {
+        File outputDir = getOutputDir().get().getAsFile();
+        File[] sources = getSourceDir().get().getAsFile()
+                .listFiles((dir, name) -> name.endsWith(".geojson"));
+        if (sources == null || sources.length == 0) {
+            throw new GradleException("No .geojson files in " + getSourceDir().get());
+        }
+
+        for (File source : sources) {
+            String text = new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8);
+            byte[] encoded;
+            try {
+                encoded = GeoJsonEncoder.encode(text, getScale().get());
+            } catch (RuntimeException e) {
+                throw new GradleException("Failed to encode " + source.getName(), e);
+            }
+
+            String baseName = source.getName().substring(0, source.getName().length() - ".geojson".length());
+            File target = new File(outputDir, baseName + ".pgeo");
+            Files.write(target.toPath(), encoded);
+            getLogger().lifecycle("Encoded {} ({} bytes) -> {} ({} bytes)",
+                    source.getName(), source.length(), target.getName(), encoded.length);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.projectmagang.build;
+
+import groovy.json.JsonSlurper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Converts a GeoJSON FeatureCollection of (Multi)Polygons into the compact
+ * "PGEO" binary format read by map.html and the app's geometry package.
+ *
+ * <p>Layout (all integers are unsigned LEB128 varints unless noted):</p>
+ * <pre>
+ * "PGEO" (4 bytes) | version (1 byte) | scale | featureCount
+ * per feature:
+ *   id, name, status, info          (varint byte length + UTF-8)
+ *   minX, minY, maxX, maxY          (zigzag, quantized)
+ *   polygonCount
+ *   per polygon: ringCount
+ *     per ring: pointCount, then dx, dy (zigzag) per point,
+ *               relative to the previous point, starting at (minX, minY)
+ * </pre>
+ * Coordinates are quantized as {@code round(degrees * scale)}; with
+ * {@code scale = 1_000_000} the Palu source data round-trips losslessly.
+ */
+public final class GeoJsonEncoder {
+    public static final byte[] MAGIC = {'P', 'G', 'E', 'O'};
+    public static final int VERSION = 1;
+
+    private GeoJsonEncoder() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(String geoJson, int scale) {
+        Map<String, Object> root = (Map<String, Object>) new JsonSlurper().parseText(geoJson);
+        List<Map<String, Object>> features = (List<Map<String, Object>>) root.get("features");
+        if (features == null) {
+            throw new IllegalArgumentException("Not a FeatureCollection");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(MAGIC, 0, MAGIC.length);
+        out.write(VERSION);
+        writeVarint(out, scale);
+        writeVarint(out, features.size());
+
+        for (Map<String, Object> feature : features) {
+            writeFeature(out, feature, scale);
+        }
+        return out.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeFeature(ByteArrayOutputStream out, Map<String, Object> feature,
+                                     int scale) {
+        Map<String, Object> properties = (Map<String, Object>) feature.get("properties");
+        if (properties == null) properties = Collections.emptyMap();
+
+        String name = stringOrEmpty(properties.get("name"));
+        String id = stringOrEmpty(properties.get("id"));
+        if (id.isEmpty()) {
+            // Same fallback as getRegionId() in map.html
+            id = name.toLowerCase(Locale.ROOT).replace(' ', '_');
+        }
+        writeString(out, id);
+        writeString(out, name);
+        writeString(out, stringOrEmpty(properties.get("status")));
+        writeString(out, stringOrEmpty(properties.get("info")));
+
+        Map<String, Object> geometry = (Map<String, Object>) feature.get("geometry");
+        String type = (String) geometry.get("type");
+        List<Object> coordinates = (List<Object>) geometry.get("coordinates");
+
+        List<Object> polygons;
+        if ("Polygon".equals(type)) {
+            polygons = Collections.singletonList(coordinates);
+        } else if ("MultiPolygon".equals(type)) {
+            polygons = coordinates;
+        } else {
+            throw new IllegalArgumentException("Unsupported geometry " + type + " in " + id);
+        }
+
+        long[] bbox = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE};
+        for (Object polygon : polygons) {
+            for (Object ring : (List<Object>) polygon) {
+                for (Object point : (List<Object>) ring) {
+                    long x = quantize(((List<Object>) point).get(0), scale);
+                    long y = quantize(((List<Object>) point).get(1), scale);
+                    bbox[0] = Math.min(bbox[0], x);
+                    bbox[1] = Math.min(bbox[1], y);
+                    bbox[2] = Math.max(bbox[2], x);
+                    bbox[3] = Math.max(bbox[3], y);
+                }
+            }
+        }
+        for (long value : bbox) {
+            writeZigzag(out, value);
+        }
+
+        writeVarint(out, polygons.size());
+        for (Object polygon : polygons) {
+            List<Object> rings = (List<Object>) polygon;
+            writeVarint(out, rings.size());
+            for (Object ring : rings) {
+                List<Object> points = (List<Object>) ring;
+                writeVarint(out, points.size());
+                long prevX = bbox[0];
+                long prevY = bbox[1];
+                for (Object point : points) {
+                    long x = quantize(((List<Object>) point).get(0), scale);
+                    long y = quantize(((List<Object>) point).get(1), scale);
+                    writeZigzag(out, x - prevX);
+                    writeZigzag(out, y - prevY);
+                    prevX = x;
+                    prevY = y;
+                }
+            }
+        }
+    }
+
+    private static long quantize(Object degrees, int scale) {
+        BigDecimal value = degrees instanceof BigDecimal
+                ? (BigDecimal) degrees
+                : new BigDecimal(degrees.toString());
+        return value.multiply(BigDecimal.valueOf(scale))
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    private static String stringOrEmpty(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeZigzag(ByteArrayOutputStream out, long value) {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.projectmagang.build;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Checks third-party web assets (e.g. Leaflet) that are vendored into
+ * {@code src/main/assets} against pinned Subresource Integrity hashes
+ * ({@code sha256-...}, {@code sha384-...} or {@code sha512-...}).
+ *
+ * <p>The build never downloads anything. A pinned file that was modified
+ * fails the build, so an upgrade means replacing the file and its hash
+ * together; a missing file only warns, since the page then falls back to the
+ * CDN copy with the same hash.</p>
+ */
+public abstract class VerifyAssetsTask extends DefaultTask {
+
+    @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getAssetsDir();
+
+    /** Assets-relative path -> SRI hash. */
+    @Input
+    public abstract MapProperty<String, String> getIntegrity();
+
+    /** Written on success so the check is skipped while inputs are unchanged. */
+    @OutputFile
+    public abstract RegularFileProperty getStampFile();
+
+    @TaskAction
+    public void verify() throws IOException {
+        File assetsDir = getAssetsDir().get().getAsFile();
+        StringBuilder stamp = new StringBuilder();
+
+        for (Map.Entry<String, String> entry : getIntegrity().get().entrySet()) {
+            String path = entry.getKey();
+            String expected = entry.getValue();
+            File file = new File(assetsDir, path);
+            if (!file.isFile()) {
+                getLogger().warn("Vendored asset {} is missing (expected {}); "
+                        + "the app will load it from the CDN", file, expected);
+                stamp.append(path).append(" missing\n");
+                continue;
+            }
+
+            String actual = sri(expected, Files.readAllBytes(file.toPath()));
+            if (!expected.equals(actual)) {
+                throw new GradleException("Integrity mismatch for " + path
+                        + ": expected " + expected + ", got " + actual);
+            }
+            stamp.append(path).append(' ').append(actual).append('\n');
+        }
+
+        File stampFile = getStampFile().get().getAsFile();
+        File parent = stampFile.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        Files.writeString(stampFile.toPath(), stamp);
+    }
+
+    private static String sri(String expected, byte[] content) {
+        int dash = expected.indexOf('-');
+        if (dash < 0) {
+            throw new GradleException("Malformed integrity hash " + expected);
+        }
+        String algorithm = expected.substring(0, dash);
+        String javaName = "SHA-" + algorithm.substring("sha".length());
+        try {
+            byte[] digest = MessageDigest.getInstance(javaName).digest(content);
+            return algorithm + "-" + Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new GradleException("Unsupported integrity algorithm " + algorithm, e);
+        }
+    }
+}